@@ -7,6 +7,7 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -31,7 +32,9 @@ public class DataSeeder implements ApplicationRunner {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
+    // one read-write transaction, so the "already seeded" check reads the primary
     @Override
+    @Transactional
     public void run(ApplicationArguments args) throws Exception {
 
         if (userRepository.count() > 0) {
@@ -0,0 +1,153 @@
+package me.remontada.nwp_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.remontada.nwp_backend.datasource.ReadYourWritesTracker;
+import me.remontada.nwp_backend.datasource.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+
+/**
+ * The application's pools. Read replica routing is only active when datasource.replica.url
+ * is set; without it every connection comes from the primary pool.
+ *
+ * The lazy proxy only takes a physical connection on first use, after the transaction
+ * has been marked read-only, so @Transactional(readOnly = true) work goes to the replica
+ * source and everything else to the primary. All pools are Hikari beans, so their
+ * metrics show up per pool (hikaricp.* tagged pool=primary / pool=replica / pool=export...).
+ *
+ * Order exports get pools of their own, so a long export never takes connections from the
+ * pools serving regular requests. They are routed by the same replica health and lag rules.
+ */
+@Configuration
+public class DataSourceConfig {
+
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.replica.url")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username:${spring.datasource.username}}") String username,
+                                              @Value("${datasource.replica.password:${spring.datasource.password}}") String password,
+                                              @Value("${datasource.replica.pool-size:10}") int poolSize,
+                                              @Value("${datasource.replica.connection-timeout:2s}") Duration connectionTimeout) {
+
+        HikariDataSource dataSource = replicaPool(properties, url, username, password, connectionTimeout);
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(poolSize);
+        return dataSource;
+    }
+
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.replica.url")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                             @Qualifier("replicaDataSource") DataSource replica,
+                                                             ReadYourWritesTracker readYourWrites,
+                                                             @Value("${datasource.replica.max-lag:5s}") Duration maxLag,
+                                                             MeterRegistry meterRegistry) {
+        return new ReplicaRoutingDataSource(primary, replica, readYourWrites, maxLag, meterRegistry);
+    }
+
+
+    // without a replica this is the primary pool itself, which closes as primaryDataSource
+    @Bean(destroyMethod = "")
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 ObjectProvider<ReplicaRoutingDataSource> replicaRouting) {
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        if (routing == null) {
+            return primary;
+        }
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(routing);
+        return proxy;
+    }
+
+
+    @Bean
+    @ConfigurationProperties("orders.export.hikari")
+    public HikariDataSource exportPrimaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("export-primary");
+        exportSettings(dataSource);
+        return dataSource;
+    }
+
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.replica.url")
+    @ConfigurationProperties("orders.export.hikari")
+    public HikariDataSource exportReplicaDataSource(DataSourceProperties properties,
+                                                    @Value("${datasource.replica.url}") String url,
+                                                    @Value("${datasource.replica.username:${spring.datasource.username}}") String username,
+                                                    @Value("${datasource.replica.password:${spring.datasource.password}}") String password,
+                                                    @Value("${datasource.replica.connection-timeout:2s}") Duration connectionTimeout) {
+
+        HikariDataSource dataSource = replicaPool(properties, url, username, password, connectionTimeout);
+        dataSource.setPoolName("export-replica");
+        exportSettings(dataSource);
+        return dataSource;
+    }
+
+
+    // the replica while it is usable, the primary otherwise, exactly like regular reads
+    @Bean(destroyMethod = "")
+    public DataSource exportDataSource(@Qualifier("exportPrimaryDataSource") DataSource primary,
+                                       @Qualifier("exportReplicaDataSource") ObjectProvider<DataSource> replica,
+                                       ObjectProvider<ReplicaRoutingDataSource> replicaRouting) {
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        if (routing == null) {
+            return primary;
+        }
+        return routing.routing(primary, replica.getObject());
+    }
+
+
+    private static HikariDataSource replicaPool(DataSourceProperties properties, String url, String username,
+                                                String password, Duration connectionTimeout) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        // short, so a dead replica falls back to the primary quickly
+        dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+        // start even if the replica is down
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+
+    private static void exportSettings(HikariDataSource dataSource) {
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setMinimumIdle(0);
+        dataSource.setInitializationFailTimeout(-1);
+        // the Postgres driver only fetches in chunks inside a transaction
+        dataSource.setAutoCommit(false);
+        dataSource.setReadOnly(true);
+    }
+}
@@ -0,0 +1,64 @@
+package me.remontada.nwp_backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Hit ratio per second-level cache region, next to the raw hit/miss/put counters the
+ * Hibernate Micrometer binder already publishes.
+ */
+@Slf4j
+@Component
+public class SecondLevelCacheMetrics {
+
+    // query regions are only created on first use, so they are not listed at startup yet
+    private static final List<String> QUERY_REGIONS = List.of("query.users-by-email");
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+
+    @PostConstruct
+    public void init() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            log.warn("Hibernate statistics are disabled, no second-level cache hit ratios");
+            return;
+        }
+
+        Set<String> regions = new TreeSet<>(List.of(statistics.getSecondLevelCacheRegionNames()));
+        regions.addAll(QUERY_REGIONS);
+
+        for (String region : regions) {
+            Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, stats -> hitRatio(stats, region))
+                    .tag("region", region)
+                    .register(meterRegistry);
+        }
+    }
+
+
+    private static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+
+        long requests = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) regionStatistics.getHitCount() / requests;
+    }
+}
@@ -4,12 +4,17 @@ import lombok.extern.slf4j.Slf4j;
 import me.remontada.nwp_backend.dto.DishAvailabilityUpdateRequest;
 import me.remontada.nwp_backend.dto.DishCreateRequest;
 import me.remontada.nwp_backend.dto.DishUpdateRequest;
+import me.remontada.nwp_backend.dto.response.DishSuggestionDTO;
 import me.remontada.nwp_backend.model.Dish;
 import me.remontada.nwp_backend.service.DishService;
+import me.remontada.nwp_backend.service.MenuRenderer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -25,10 +30,21 @@ public class DishController {
 
 
     @GetMapping
-    public ResponseEntity<List<Dish>> getAllAvailableDishes() {
+    public ResponseEntity<byte[]> getAllAvailableDishes(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
 
-        List<Dish> dishes = dishService.getAllAvailableDishes();
-        return ResponseEntity.ok(dishes);
+        return renderedMenu(dishService.getRenderedMenu(false), acceptEncoding, request);
+    }
+
+
+    // the whole available menu grouped by category, instead of one call per category
+    @GetMapping("/menu")
+    public ResponseEntity<byte[]> getMenuByCategory(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+
+        return renderedMenu(dishService.getRenderedMenu(true), acceptEncoding, request);
     }
 
 
@@ -53,8 +69,12 @@ public class DishController {
     @GetMapping("/category/{category}")
     public ResponseEntity<List<Dish>> getDishesByCategory(
             @PathVariable String category,
-            @RequestParam(required = false, defaultValue = "true") boolean onlyAvailable) {
+            @RequestParam(required = false, defaultValue = "true") boolean onlyAvailable,
+            WebRequest request) {
 
+        if (request.checkNotModified(dishService.getMenuETag())) {
+            return null;
+        }
 
         List<Dish> dishes = dishService.getDishesByCategory(category, onlyAvailable);
         return ResponseEntity.ok(dishes);
@@ -69,8 +89,22 @@ public class DishController {
     }
 
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<DishSuggestionDTO>> suggestDishes(
+            @RequestParam String q,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+
+        List<DishSuggestionDTO> suggestions = dishService.suggestDishes(q, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
+
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getAllCategories() {
+    public ResponseEntity<List<String>> getAllCategories(WebRequest request) {
+
+        if (request.checkNotModified(dishService.getMenuETag())) {
+            return null;
+        }
 
         List<String> categories = dishService.getAllCategories();
         return ResponseEntity.ok(categories);
@@ -133,5 +167,20 @@ public class DishController {
     }
 
 
+    private ResponseEntity<byte[]> renderedMenu(MenuRenderer.RenderedMenu menu, String acceptEncoding, WebRequest request) {
+        boolean gzip = menu.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
 
-}
\ No newline at end of file
+        if (request.checkNotModified(gzip ? menu.gzipETag() : menu.etag())) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(menu.gzip());
+        }
+        return response.body(menu.json());
+    }
+}
@@ -3,19 +3,28 @@ package me.remontada.nwp_backend.controller;
 import lombok.extern.slf4j.Slf4j;
 import me.remontada.nwp_backend.dto.PlaceOrderRequest;
 import me.remontada.nwp_backend.dto.ScheduleOrderRequest;
+import me.remontada.nwp_backend.dto.response.OrderPageResponseDTO;
 import me.remontada.nwp_backend.dto.response.OrderResponseDTO;
 import me.remontada.nwp_backend.mapper.OrderMapper;
 import me.remontada.nwp_backend.model.Order;
 import me.remontada.nwp_backend.model.OrderStatus;
 import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.security.RateLimiter;
+import me.remontada.nwp_backend.service.OrderExportService;
 import me.remontada.nwp_backend.service.OrderService;
 import me.remontada.nwp_backend.service.UserService;
+import me.remontada.nwp_backend.util.OrderCursor;
+import me.remontada.nwp_backend.util.PermissionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
@@ -37,6 +46,12 @@ public class OrderController {
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
     private User getCurrentUser(Authentication authentication) {
         if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
             throw new RuntimeException("User not authenticated");
@@ -45,35 +60,94 @@ public class OrderController {
     }
 
 
+    private List<OrderStatus> parseStatuses(List<String> status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+
+        return status.stream()
+                .map(s -> {
+                    try {
+                        return OrderStatus.valueOf(s.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        throw new RuntimeException("Invalid status: " + s);
+                    }
+                })
+                .toList();
+    }
+
+
     @GetMapping
     @PreAuthorize("hasAuthority('CAN_SEARCH_ORDER')")
-    public ResponseEntity<List<OrderResponseDTO>> searchOrders(
+    public ResponseEntity<OrderPageResponseDTO> searchOrders(
             @RequestParam(required = false) List<String> status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateFrom,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTo,
             @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication authentication) {
         ;
 
 
         User currentUser = getCurrentUser(authentication);
+        rateLimiter.checkLimit(currentUser, "SEARCH_ORDER");
+
+        List<OrderStatus> orderStatuses = parseStatuses(status);
+
+        OrderCursor after = cursor != null && !cursor.isBlank() ? OrderCursor.decode(cursor) : null;
+
+        Slice<OrderResponseDTO> orders = orderService.searchOrders(currentUser, orderStatuses, dateFrom, dateTo, userId, after, size);
+
+        String nextCursor = null;
+        if (orders.hasNext()) {
+            OrderResponseDTO last = orders.getContent().get(orders.getNumberOfElements() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return ResponseEntity.ok(new OrderPageResponseDTO(orders.getContent(), nextCursor));
+    }
+
+
+    /**
+     * Streams every matching order as NDJSON (one order per line) or CSV (one order line per row).
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('CAN_SEARCH_ORDER')")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTo,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            Authentication authentication) {
+
+
+        User currentUser = getCurrentUser(authentication);
+        rateLimiter.checkLimit(currentUser, "EXPORT_ORDER");
 
-        List<OrderStatus> orderStatuses = null;
-        if (status != null && !status.isEmpty()) {
-            orderStatuses = status.stream()
-                    .map(s -> {
-                        try {
-                            return OrderStatus.valueOf(s.toUpperCase());
-                        } catch (IllegalArgumentException e) {
-                            throw new RuntimeException("Invalid status: " + s);
-                        }
-                    })
-                    .toList();
+        List<OrderStatus> orderStatuses = parseStatuses(status);
+        Long exportUserId = PermissionUtils.isAdmin(currentUser) ? userId : currentUser.getId();
+
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid format: " + format);
         }
 
-        List<Order> orders = orderService.searchOrders(currentUser, orderStatuses, dateFrom, dateTo, userId);
-        List<OrderResponseDTO> orderDTOs = orderMapper.toResponseDTOs(orders);
-        return ResponseEntity.ok(orderDTOs);
+        MediaType contentType = exportFormat == OrderExportService.Format.CSV
+                ? new MediaType("text", "csv")
+                : new MediaType("application", "x-ndjson");
+
+        StreamingResponseBody body = out ->
+                orderExportService.export(orderStatuses, dateFrom, dateTo, exportUserId, exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + exportFormat.name().toLowerCase() + "\"")
+                .body(body);
     }
 
 
@@ -85,6 +159,7 @@ public class OrderController {
 
 
         User currentUser = getCurrentUser(authentication);
+        rateLimiter.checkLimit(currentUser, "PLACE_ORDER");
 
         Order order = orderService.placeOrder(currentUser, request.getItems());
         OrderResponseDTO orderDTO = orderMapper.toResponseDTO(order);
@@ -102,6 +177,7 @@ public class OrderController {
        ;
 
         User currentUser = getCurrentUser(authentication);
+        rateLimiter.checkLimit(currentUser, "SCHEDULE_ORDER");
 
         Order order = orderService.scheduleOrder(currentUser, request.getItems(), request.getScheduledFor());
 
@@ -0,0 +1,37 @@
+package me.remontada.nwp_backend.datasource;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs reads in their own read-write transaction, so they go to the primary even when a
+ * replica is configured. Repository reads are read-only and would otherwise be routed to
+ * the replica; background jobs that rebuild in-memory state from the DB must not bake a
+ * lagging replica's view into it.
+ */
+@Component
+public class PrimaryReads {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate template;
+
+
+    @PostConstruct
+    public void init() {
+        template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+
+    public <T> T read(Supplier<T> work) {
+        return template.execute(status -> work.get());
+    }
+}
@@ -0,0 +1,64 @@
+package me.remontada.nwp_backend.datasource;
+
+import me.remontada.nwp_backend.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers users that just wrote, so their reads go to the primary until the replica
+ * has certainly caught up (read-your-writes).
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    @Value("${datasource.replica.read-your-writes-window:10s}")
+    private Duration window;
+
+    // user id -> System.nanoTime() until which the user reads from the primary
+    private final Map<Long, Long> primaryUntil = new ConcurrentHashMap<>();
+
+
+    /**
+     * Starts the user's window once the current transaction commits (or right away outside a transaction).
+     */
+    public void markWrite(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            primaryUntil.put(userId, System.nanoTime() + window.toNanos());
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                primaryUntil.put(userId, System.nanoTime() + window.toNanos());
+            }
+        });
+    }
+
+
+    public boolean requiresPrimary() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            return false;
+        }
+
+        Long until = primaryUntil.get(user.getId());
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+
+    @Scheduled(fixedDelayString = "${datasource.replica.read-your-writes-eviction-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        primaryUntil.values().removeIf(until -> until - now <= 0);
+    }
+}
@@ -0,0 +1,133 @@
+package me.remontada.nwp_backend.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Source of read-only connections: the replica while it is reachable and close enough
+ * to the primary, the primary otherwise or for users inside their read-your-writes window.
+ *
+ * Replica health and lag are polled in the background; a failing replica connection
+ * marks it down right away and the request falls back to the primary.
+ *
+ * Only read-only transactions are routed here. Background jobs that rebuild in-memory
+ * state read through PrimaryReads, which always uses the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    // 0 while the replica has replayed everything it received, so an idle primary does not look like lag
+    private static final String LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() " +
+            "THEN 0 ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReadYourWritesTracker readYourWrites;
+    private final Duration maxLag;
+
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    private volatile boolean replicaUsable = true;
+    private volatile double replicaLagSeconds;
+
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker readYourWrites,
+                                    Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.readYourWrites = readYourWrites;
+        this.maxLag = maxLag;
+
+        primaryRoutes = Counter.builder("datasource.read.routes").tag("route", "primary").register(meterRegistry);
+        replicaRoutes = Counter.builder("datasource.read.routes").tag("route", "replica").register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", () -> replicaUsable ? 1 : 0).register(meterRegistry);
+        Gauge.builder("datasource.replica.lag", () -> replicaLagSeconds).baseUnit("seconds").register(meterRegistry);
+    }
+
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(primary, replica);
+    }
+
+
+    // explicit credentials are not routed, they only make sense for the primary
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryRoutes.increment();
+        return primary.getConnection(username, password);
+    }
+
+
+    /**
+     * Routes between another pair of pools (e.g. the export pools) by the same rules and
+     * with the same view of replica health and lag.
+     */
+    public DataSource routing(DataSource primaryPool, DataSource replicaPool) {
+        return new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return route(primaryPool, replicaPool);
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                primaryRoutes.increment();
+                return primaryPool.getConnection(username, password);
+            }
+        };
+    }
+
+
+    @Scheduled(fixedDelayString = "${datasource.replica.health-check-interval-ms:5000}")
+    public void checkReplica() {
+        boolean usable;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+
+            rs.next();
+            replicaLagSeconds = rs.getDouble(1);
+            usable = replicaLagSeconds <= maxLag.toMillis() / 1000.0;
+        } catch (SQLException e) {
+            usable = false;
+        }
+
+        if (usable != replicaUsable) {
+            log.info("Replica {} (lag {} s)", usable ? "back in use" : "taken out of use", replicaLagSeconds);
+        }
+        replicaUsable = usable;
+    }
+
+
+    private Connection route(DataSource primaryPool, DataSource replicaPool) throws SQLException {
+        if (!replicaUsable || readYourWrites.requiresPrimary()) {
+            primaryRoutes.increment();
+            return primaryPool.getConnection();
+        }
+
+        try {
+            Connection connection = replicaPool.getConnection();
+            replicaRoutes.increment();
+            return connection;
+        } catch (SQLException e) {
+            replicaUsable = false;
+            log.warn("Replica unavailable, reading from the primary until it recovers: {}", e.getMessage());
+
+            primaryRoutes.increment();
+            return primaryPool.getConnection();
+        }
+    }
+}
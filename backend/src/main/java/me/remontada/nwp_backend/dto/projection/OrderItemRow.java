@@ -0,0 +1,18 @@
+package me.remontada.nwp_backend.dto.projection;
+
+import java.math.BigDecimal;
+
+
+/**
+ * Flat read model of an order line and its dish, filled straight from the query row.
+ */
+public record OrderItemRow(Long orderId,
+                           Long id,
+                           Integer quantity,
+                           BigDecimal priceAtTime,
+                           Long dishId,
+                           String dishName,
+                           String dishDescription,
+                           BigDecimal dishPrice,
+                           String dishCategory) {
+}
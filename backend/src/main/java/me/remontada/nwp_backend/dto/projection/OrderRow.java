@@ -0,0 +1,23 @@
+package me.remontada.nwp_backend.dto.projection;
+
+import me.remontada.nwp_backend.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+
+/**
+ * Flat read model of an order and its creator, filled straight from the query row.
+ */
+public record OrderRow(Long id,
+                       OrderStatus status,
+                       Boolean active,
+                       LocalDateTime createdAt,
+                       LocalDateTime scheduledFor,
+                       BigDecimal totalAmount,
+                       Integer totalItems,
+                       Long createdById,
+                       String createdByFirstName,
+                       String createdByLastName,
+                       String createdByEmail) {
+}
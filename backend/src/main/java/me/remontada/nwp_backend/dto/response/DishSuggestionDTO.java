@@ -0,0 +1,17 @@
+package me.remontada.nwp_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DishSuggestionDTO {
+    private String text;
+    private String type;         // DISH or CATEGORY
+    private Long dishId;         // only for DISH
+    private String category;
+    private long popularity;     // units ordered
+}
@@ -0,0 +1,15 @@
+package me.remontada.nwp_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponseDTO {
+    private List<OrderResponseDTO> items;
+    private String nextCursor;            // null on the last page
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import me.remontada.nwp_backend.model.OrderStatus;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -20,5 +21,8 @@ public class OrderResponseDTO {
     private LocalDateTime scheduledFor;
     private List<OrderItemResponseDTO> items;
     private Integer totalItems;
+    private BigDecimal totalAmount;
     private String statusDisplayName;
+    private Integer queuePosition;        // only while WAITING, 1 = next to start
+    private LocalDateTime estimatedStartAt;
 }
\ No newline at end of file
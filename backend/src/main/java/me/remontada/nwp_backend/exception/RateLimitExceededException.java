@@ -0,0 +1,14 @@
+package me.remontada.nwp_backend.exception;
+
+import lombok.Getter;
+
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String operation, long retryAfterSeconds) {
+        super("Too many requests for " + operation + ", retry in " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -2,9 +2,12 @@ package me.remontada.nwp_backend.mapper;
 
 import me.remontada.nwp_backend.dto.response.OrderItemResponseDTO;
 import me.remontada.nwp_backend.dto.response.DishSimpleDTO;
+import me.remontada.nwp_backend.dto.projection.OrderItemRow;
 import me.remontada.nwp_backend.model.OrderItem;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+
 @Component
 public class OrderItemMapper {
 
@@ -34,4 +37,16 @@ public class OrderItemMapper {
 
         return dto;
     }
+
+
+    public OrderItemResponseDTO toResponseDTO(OrderItemRow row) {
+        OrderItemResponseDTO dto = new OrderItemResponseDTO();
+        dto.setId(row.id());
+        dto.setQuantity(row.quantity());
+        dto.setPriceAtTime(row.priceAtTime());
+        dto.setTotalPrice(row.priceAtTime().multiply(BigDecimal.valueOf(row.quantity())));
+        dto.setDish(new DishSimpleDTO(row.dishId(), row.dishName(), row.dishDescription(),
+                row.dishPrice(), row.dishCategory()));
+        return dto;
+    }
 }
\ No newline at end of file
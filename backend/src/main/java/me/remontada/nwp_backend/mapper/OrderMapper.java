@@ -1,12 +1,16 @@
 package me.remontada.nwp_backend.mapper;
 
+import me.remontada.nwp_backend.dto.projection.OrderItemRow;
+import me.remontada.nwp_backend.dto.projection.OrderRow;
 import me.remontada.nwp_backend.dto.response.OrderResponseDTO;
 import me.remontada.nwp_backend.dto.response.OrderItemResponseDTO;
 import me.remontada.nwp_backend.model.Order;
 import me.remontada.nwp_backend.model.OrderStatus;
+import me.remontada.nwp_backend.service.AdmissionController;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +24,9 @@ public class OrderMapper {
     @Autowired
     private OrderItemMapper orderItemMapper;
 
+    @Autowired
+    private AdmissionController admissionController;
+
 
     public OrderResponseDTO toResponseDTO(Order order) {
         if (order == null) {
@@ -43,18 +50,52 @@ public class OrderMapper {
                     .map(orderItemMapper::toResponseDTO)
                     .collect(Collectors.toList());
             dto.setItems(itemDTOs);
-
-            // total number of items
-            dto.setTotalItems(itemDTOs.stream()
-                    .mapToInt(OrderItemResponseDTO::getQuantity)
-                    .sum());
-        } else {
-            dto.setTotalItems(0);
         }
 
+        setTotals(dto, order.getTotalAmount(), order.getTotalItems());
+
         // Computed field
         dto.setStatusDisplayName(getStatusDisplayName(order.getStatus()));
 
+        if (order.getStatus() == OrderStatus.WAITING) {
+            dto.setQueuePosition(admissionController.queuePosition(order.getId()));
+            dto.setEstimatedStartAt(admissionController.estimatedStartAt(order.getId()));
+        }
+
+        return dto;
+    }
+
+
+    /**
+     * Same DTO as above, assembled from projection rows instead of managed entities.
+     */
+    public OrderResponseDTO toResponseDTO(OrderRow row, List<OrderItemRow> items) {
+        OrderResponseDTO dto = new OrderResponseDTO();
+
+        dto.setId(row.id());
+        dto.setStatus(row.status());
+        dto.setActive(row.active());
+        dto.setCreatedAt(row.createdAt());
+        dto.setScheduledFor(row.scheduledFor());
+        dto.setCreatedBy(userMapper.toSimpleDTO(row.createdById(), row.createdByFirstName(),
+                row.createdByLastName(), row.createdByEmail()));
+
+        if (!items.isEmpty()) {
+            List<OrderItemResponseDTO> itemDTOs = items.stream()
+                    .map(orderItemMapper::toResponseDTO)
+                    .collect(Collectors.toList());
+            dto.setItems(itemDTOs);
+        }
+
+        setTotals(dto, row.totalAmount(), row.totalItems());
+
+        dto.setStatusDisplayName(getStatusDisplayName(row.status()));
+
+        if (row.status() == OrderStatus.WAITING) {
+            dto.setQueuePosition(admissionController.queuePosition(row.id()));
+            dto.setEstimatedStartAt(admissionController.estimatedStartAt(row.id()));
+        }
+
         return dto;
     }
 
@@ -66,8 +107,22 @@ public class OrderMapper {
     }
 
 
+    // stored totals, recomputed from the lines only for orders that are not backfilled yet
+    private void setTotals(OrderResponseDTO dto, BigDecimal totalAmount, Integer totalItems) {
+        List<OrderItemResponseDTO> items = dto.getItems() != null ? dto.getItems() : List.of();
+
+        dto.setTotalAmount(totalAmount != null ? totalAmount : items.stream()
+                .map(OrderItemResponseDTO::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        dto.setTotalItems(totalItems != null ? totalItems : items.stream()
+                .mapToInt(OrderItemResponseDTO::getQuantity)
+                .sum());
+    }
+
+
     private String getStatusDisplayName(OrderStatus status) {
         return switch (status) {
+            case WAITING -> "Waiting for Kitchen";
             case ORDERED -> "Order Placed";
             case PREPARING -> "Kitchen is Preparing";
             case IN_DELIVERY -> "Out for Delivery";
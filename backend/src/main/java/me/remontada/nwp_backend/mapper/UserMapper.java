@@ -12,14 +12,19 @@ public class UserMapper {
             return null;
         }
 
+        return toSimpleDTO(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail());
+    }
+
+
+    public UserSimpleDTO toSimpleDTO(Long id, String firstName, String lastName, String email) {
         UserSimpleDTO dto = new UserSimpleDTO();
-        dto.setId(user.getId());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setEmail(user.getEmail());
+        dto.setId(id);
+        dto.setFirstName(firstName);
+        dto.setLastName(lastName);
+        dto.setEmail(email);
 
         //full name
-        dto.setFullName(user.getFirstName() + " " + user.getLastName());
+        dto.setFullName(firstName + " " + lastName);
 
         return dto;
     }
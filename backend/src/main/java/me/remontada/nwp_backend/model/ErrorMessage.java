@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class ErrorMessage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "error_messages_seq")
+    @SequenceGenerator(name = "error_messages_seq", sequenceName = "error_messages_seq", allocationSize = 50)
     private Long id;
 
 
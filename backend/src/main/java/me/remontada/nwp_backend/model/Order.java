@@ -2,6 +2,7 @@ package me.remontada.nwp_backend.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -14,8 +15,10 @@ import java.util.List;
 @Table(name = "orders")
 public class Order {
 
+    // sequence ids let Hibernate batch inserts, IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
 
@@ -45,8 +48,27 @@ public class Order {
     private List<OrderItem> items;
 
 
+    // denormalized from items, null until backfilled for orders created before these columns
+    @Column(name = "total_amount", precision = 12, scale = 2)
+    private BigDecimal totalAmount;
+
+
+    @Column(name = "total_items")
+    private Integer totalItems;
+
+
+    public void updateTotals() {
+        totalAmount = items.stream()
+                .map(OrderItem::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        totalItems = items.stream()
+                .mapToInt(OrderItem::getQuantity)
+                .sum();
+    }
+
+
     public boolean canBeCanceled() {
-        return status == OrderStatus.ORDERED;
+        return status == OrderStatus.ORDERED || status == OrderStatus.WAITING;
     }
 
 
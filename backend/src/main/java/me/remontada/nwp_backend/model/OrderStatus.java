@@ -3,13 +3,16 @@ package me.remontada.nwp_backend.model;
 /**
 
  * WORKFLOW:
- * ORDERED - PREPARING - IN_DELIVERY - DELIVERED
- *    \
- * CANCELED
+ * (WAITING) - ORDERED - PREPARING - IN_DELIVERY - DELIVERED
+ *                \
+ *             CANCELED
+ *
+ * WAITING: accepted while the kitchen is full, promoted to ORDERED when a slot frees up
  */
 
 public enum OrderStatus {
 
+    WAITING,
     ORDERED,
     PREPARING,
     IN_DELIVERY,
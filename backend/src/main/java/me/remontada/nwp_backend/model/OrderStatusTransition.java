@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class OrderStatusTransition {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_status_transitions_seq")
+    @SequenceGenerator(name = "order_status_transitions_seq", sequenceName = "order_status_transitions_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_id", nullable = false)
@@ -32,6 +33,12 @@ public class OrderStatusTransition {
     @Column(name = "processed", nullable = false)
     private Boolean processed = false;
 
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
     public OrderStatusTransition(Long orderId, OrderStatus targetStatus, LocalDateTime scheduledFor) {
         this.orderId = orderId;
         this.targetStatus = targetStatus;
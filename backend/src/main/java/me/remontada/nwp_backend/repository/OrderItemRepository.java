@@ -25,4 +25,15 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
 
     void deleteByOrderId(Long orderId);
+
+
+    @Query("SELECT oi.dish.id AS dishId, SUM(oi.quantity) AS ordered FROM OrderItem oi GROUP BY oi.dish.id")
+    List<DishPopularity> findDishPopularity();
+
+
+    interface DishPopularity {
+        Long getDishId();
+
+        Long getOrdered();
+    }
 }
\ No newline at end of file
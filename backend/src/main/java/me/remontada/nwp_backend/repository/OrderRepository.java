@@ -1,18 +1,24 @@
 package me.remontada.nwp_backend.repository;
 
+import jakarta.persistence.LockModeType;
+import me.remontada.nwp_backend.dto.projection.OrderItemRow;
 import me.remontada.nwp_backend.model.Order;
 import me.remontada.nwp_backend.model.OrderStatus;
+import me.remontada.nwp_backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository {
 
 
     List<Order> findByCreatedByIdOrderByCreatedAtDesc(Long userId);
@@ -25,35 +31,83 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     long countByStatusInAndActiveTrue(@Param("statuses") List<OrderStatus> statuses);
 
 
-    @Query("SELECT o FROM Order o WHERE o.createdBy.id = :userId " +
-            "AND (COALESCE(:statuses, NULL) IS NULL OR o.status IN :statuses) " +
-            "AND (COALESCE(:dateFrom, NULL) IS NULL OR o.createdAt >= :dateFrom) " +
-            "AND (COALESCE(:dateTo, NULL) IS NULL OR o.createdAt <= :dateTo) " +
-            "ORDER BY o.createdAt DESC")
-    List<Order> searchUserOrders(@Param("userId") Long userId,
-                                 @Param("statuses") List<OrderStatus> statuses,
-                                 @Param("dateFrom") LocalDateTime dateFrom,
-                                 @Param("dateTo") LocalDateTime dateTo);
+    @Query("SELECT new me.remontada.nwp_backend.dto.projection.OrderItemRow(" +
+            "i.order.id, i.id, i.quantity, i.priceAtTime, d.id, d.name, d.description, d.price, d.category) " +
+            "FROM OrderItem i JOIN i.dish d WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderItemRow> findItemRows(@Param("orderIds") List<Long> orderIds);
 
 
-    @Query("SELECT o FROM Order o WHERE " +
-            "(COALESCE(:userId, NULL) IS NULL OR o.createdBy.id = :userId) " +
-            "AND (COALESCE(:statuses, NULL) IS NULL OR o.status IN :statuses) " +
-            "AND (COALESCE(:dateFrom, NULL) IS NULL OR o.createdAt >= :dateFrom) " +
-            "AND (COALESCE(:dateTo, NULL) IS NULL OR o.createdAt <= :dateTo) " +
-            "ORDER BY o.createdAt DESC")
-    List<Order> searchAllOrders(@Param("userId") Long userId,
-                                @Param("statuses") List<OrderStatus> statuses,
-                                @Param("dateFrom") LocalDateTime dateFrom,
-                                @Param("dateTo") LocalDateTime dateTo);
+    // Order graph loaders: the rows they return initialize the lazy references of orders
+    // already in the persistence context, so a page is mapped without per-order selects
 
+    @Query("SELECT o FROM Order o JOIN FETCH o.createdBy LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.dish " +
+            "WHERE o.id = :orderId")
+    Optional<Order> findWithItemsById(@Param("orderId") Long orderId);
 
-    @Query("SELECT o FROM Order o WHERE o.scheduledFor IS NOT NULL " +
-            "AND o.scheduledFor <= :currentTime AND o.status = :status")
-    List<Order> findScheduledOrdersReadyForProcessing(@Param("currentTime") LocalDateTime currentTime,
-                                                      @Param("status") OrderStatus status);
 
+    @Query("SELECT DISTINCT u FROM Order o JOIN o.createdBy u LEFT JOIN FETCH u.permissions WHERE o.id IN :orderIds")
+    List<User> fetchCreators(@Param("orderIds") List<Long> orderIds);
 
-    @Query("SELECT o FROM Order o WHERE o.id = :orderId AND o.status = :status")
-    Order findCancellableOrder(@Param("orderId") Long orderId, @Param("status") OrderStatus status);
+
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.dish WHERE o.id IN :orderIds")
+    List<Order> fetchItemsWithDishes(@Param("orderIds") List<Long> orderIds);
+
+
+    @Query("SELECT o.id AS id, o.scheduledFor AS scheduledFor FROM Order o WHERE o.scheduledFor IS NOT NULL " +
+            "AND o.scheduledFor <= :to AND o.status = :status")
+    List<ScheduledOrderRef> findScheduledOrdersUntil(@Param("to") LocalDateTime to,
+                                                     @Param("status") OrderStatus status);
+
+
+    @Query("SELECT o.id AS id, o.scheduledFor AS scheduledFor FROM Order o WHERE o.scheduledFor IS NOT NULL " +
+            "AND o.scheduledFor > :from AND o.scheduledFor <= :to AND o.status = :status")
+    List<ScheduledOrderRef> findScheduledOrdersBetween(@Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to,
+                                                       @Param("status") OrderStatus status);
+
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status WHERE o.id IN " +
+            "(SELECT t.orderId FROM OrderStatusTransition t WHERE t.id IN :transitionIds " +
+            "AND t.targetStatus = :status AND t.processed = false)")
+    int updateStatusForTransitions(@Param("transitionIds") List<Long> transitionIds,
+                                   @Param("status") OrderStatus status);
+
+
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status ORDER BY o.createdAt ASC, o.id ASC")
+    List<Long> findIdsByStatusOrderByCreatedAt(@Param("status") OrderStatus status);
+
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus, o.active = true " +
+            "WHERE o.id = :orderId AND o.status = :currentStatus")
+    int activateIfStatus(@Param("orderId") Long orderId,
+                         @Param("currentStatus") OrderStatus currentStatus,
+                         @Param("newStatus") OrderStatus newStatus);
+
+
+    /**
+     * Fills the stored totals of up to limit orders that do not have them yet.
+     */
+    @Modifying
+    @Query(value = "UPDATE orders o SET total_amount = t.total_amount, total_items = t.total_items FROM " +
+            "(SELECT b.id, COALESCE(SUM(i.price_at_time * i.quantity), 0) AS total_amount, " +
+            "COALESCE(SUM(i.quantity), 0) AS total_items " +
+            "FROM (SELECT id FROM orders WHERE total_amount IS NULL ORDER BY id LIMIT :limit) b " +
+            "LEFT JOIN order_items i ON i.order_id = b.id GROUP BY b.id) t " +
+            "WHERE o.id = t.id", nativeQuery = true)
+    int backfillTotals(@Param("limit") int limit);
+
+
+    // locked, so a waiting order can not be promoted while it is being canceled
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :orderId AND o.status IN (:statuses)")
+    Order findCancellableOrder(@Param("orderId") Long orderId, @Param("statuses") List<OrderStatus> statuses);
+
+
+    interface ScheduledOrderRef {
+        Long getId();
+
+        LocalDateTime getScheduledFor();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package me.remontada.nwp_backend.repository;
+
+import me.remontada.nwp_backend.dto.projection.OrderRow;
+import me.remontada.nwp_backend.model.Order;
+import me.remontada.nwp_backend.model.OrderStatus;
+import me.remontada.nwp_backend.util.OrderCursor;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+/**
+ * Order search built at runtime, so the SQL only carries the predicates that are set
+ * and each filter combination gets its own plan.
+ */
+public interface OrderSearchRepository {
+
+
+    Slice<Order> searchOrders(Filter filter, OrderCursor after, int limit);
+
+
+    Slice<OrderRow> searchOrderRows(Filter filter, OrderCursor after, int limit);
+
+
+    /**
+     * Null fields are not filtered on.
+     */
+    record Filter(Long userId, List<OrderStatus> statuses, LocalDateTime dateFrom, LocalDateTime dateTo) {
+    }
+}
@@ -0,0 +1,96 @@
+package me.remontada.nwp_backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import me.remontada.nwp_backend.dto.projection.OrderRow;
+import me.remontada.nwp_backend.model.Order;
+import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.util.OrderCursor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+
+public class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    @Override
+    public Slice<Order> searchOrders(Filter filter, OrderCursor after, int limit) {
+        return search(Order.class, filter, after, limit, (order, createdBy) -> order);
+    }
+
+
+    @Override
+    public Slice<OrderRow> searchOrderRows(Filter filter, OrderCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        return search(OrderRow.class, filter, after, limit, (order, createdBy) -> cb.construct(OrderRow.class,
+                order.get("id"), order.get("status"), order.get("active"),
+                order.get("createdAt"), order.get("scheduledFor"), order.get("totalAmount"), order.get("totalItems"),
+                createdBy.get("id"), createdBy.get("firstName"), createdBy.get("lastName"), createdBy.get("email")));
+    }
+
+
+    /**
+     * Newest first, keyset on (createdAt, id). Reads one row past the limit to tell
+     * whether there is a next page.
+     */
+    private <T> Slice<T> search(Class<T> resultType, Filter filter, OrderCursor after, int limit,
+                                BiFunction<Root<Order>, Join<Order, User>, Selection<? extends T>> selection) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(resultType);
+        Root<Order> order = query.from(Order.class);
+        Join<Order, User> createdBy = order.join("createdBy");
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (filter.userId() != null) {
+            predicates.add(cb.equal(createdBy.get("id"), filter.userId()));
+        }
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            predicates.add(order.get("status").in(filter.statuses()));
+        }
+        if (filter.dateFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.<LocalDateTime>get("createdAt"), filter.dateFrom()));
+        }
+        if (filter.dateTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(order.<LocalDateTime>get("createdAt"), filter.dateTo()));
+        }
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(order.<LocalDateTime>get("createdAt"), after.createdAt()),
+                    cb.and(cb.equal(order.get("createdAt"), after.createdAt()),
+                            cb.lessThan(order.<Long>get("id"), after.id()))));
+        }
+
+        query.select(selection.apply(order, createdBy))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(order.get("createdAt")), cb.desc(order.get("id")));
+
+        List<T> content = entityManager.createQuery(query)
+                .setMaxResults(limit + 1)
+                .getResultList();
+
+        boolean hasNext = content.size() > limit;
+        if (hasNext) {
+            content = content.subList(0, limit);
+        }
+
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+}
@@ -1,7 +1,10 @@
 package me.remontada.nwp_backend.repository;
 
+import me.remontada.nwp_backend.model.OrderStatus;
 import me.remontada.nwp_backend.model.OrderStatusTransition;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,13 +17,72 @@ import java.util.List;
 public interface OrderStatusTransitionRepository extends JpaRepository<OrderStatusTransition, Long> {
 
 
-    @Query("SELECT t FROM OrderStatusTransition t WHERE t.processed = false " +
-            "AND t.scheduledFor <= :currentTime ORDER BY t.scheduledFor ASC")
-    List<OrderStatusTransition> findPendingTransitions(@Param("currentTime") LocalDateTime currentTime);
+    @Query("SELECT t.id AS id, t.orderId AS orderId FROM OrderStatusTransition t WHERE t.processed = false " +
+            "AND t.scheduledFor <= :currentTime AND t.id > :afterId ORDER BY t.id ASC")
+    List<TransitionRef> findPendingTransitionRefs(@Param("currentTime") LocalDateTime currentTime,
+                                                  @Param("afterId") Long afterId,
+                                                  Pageable pageable);
+
+
+    @Query("SELECT t.orderId FROM OrderStatusTransition t WHERE t.id IN :ids " +
+            "AND t.targetStatus = :status AND t.processed = false")
+    List<Long> findUnprocessedOrderIds(@Param("ids") List<Long> ids, @Param("status") OrderStatus status);
+
+
+    @Modifying
+    @Query("UPDATE OrderStatusTransition t SET t.processed = true WHERE t.id IN :ids AND t.processed = false")
+    int markProcessed(@Param("ids") List<Long> ids);
 
 
     void deleteByOrderId(Long orderId);
 
 
     List<OrderStatusTransition> findByOrderIdAndProcessedFalse(Long orderId);
+
+
+    List<OrderStatusTransition> findByProcessedFalse();
+
+
+    @Query(value = "UPDATE order_status_transitions SET claimed_by = :nodeId, claimed_until = :leaseUntil " +
+            "WHERE id IN (SELECT t.id FROM order_status_transitions t WHERE t.processed = false " +
+            "AND t.scheduled_for <= :currentTime " +
+            "AND (t.claimed_until IS NULL OR t.claimed_until < :currentTime) " +
+            "ORDER BY t.scheduled_for LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id AS id, order_id AS orderId", nativeQuery = true)
+    List<TransitionRef> claimDueTransitions(@Param("nodeId") String nodeId,
+                                            @Param("currentTime") LocalDateTime currentTime,
+                                            @Param("leaseUntil") LocalDateTime leaseUntil,
+                                            @Param("limit") int limit);
+
+
+    @Query(value = "UPDATE order_status_transitions SET claimed_by = :nodeId, claimed_until = :leaseUntil " +
+            "WHERE id IN (SELECT t.id FROM order_status_transitions t WHERE t.id IN (:ids) " +
+            "AND t.processed = false " +
+            "AND (t.claimed_until IS NULL OR t.claimed_until < :currentTime OR t.claimed_by = :nodeId) " +
+            "FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id AS id, order_id AS orderId", nativeQuery = true)
+    List<TransitionRef> claimTransitions(@Param("ids") List<Long> ids,
+                                         @Param("nodeId") String nodeId,
+                                         @Param("currentTime") LocalDateTime currentTime,
+                                         @Param("leaseUntil") LocalDateTime leaseUntil);
+
+
+    @Modifying
+    @Query("UPDATE OrderStatusTransition t SET t.claimedBy = null, t.claimedUntil = null " +
+            "WHERE t.id IN :ids AND t.claimedBy = :nodeId")
+    int releaseClaims(@Param("ids") List<Long> ids, @Param("nodeId") String nodeId);
+
+
+    @Modifying
+    @Query(value = "DELETE FROM order_status_transitions WHERE id IN " +
+            "(SELECT t.id FROM order_status_transitions t WHERE t.processed = true " +
+            "AND t.scheduled_for < :olderThan ORDER BY t.id LIMIT :limit)", nativeQuery = true)
+    int deleteProcessedBefore(@Param("olderThan") LocalDateTime olderThan, @Param("limit") int limit);
+
+
+    interface TransitionRef {
+        Long getId();
+
+        Long getOrderId();
+    }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package me.remontada.nwp_backend.repository;
 
+import jakarta.persistence.QueryHint;
 import me.remontada.nwp_backend.model.User;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,6 +12,12 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // looked up on every authenticated request; the cached result is just the id, the user
+    // itself comes from the entity cache
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.users-by-email")
+    })
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
@@ -0,0 +1,144 @@
+package me.remontada.nwp_backend.security;
+
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.exception.RateLimitExceededException;
+import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.util.PermissionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token buckets per (user, operation) and per operation globally.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it is full again
+ * (GCRA form of the token bucket), so a check is one compare-and-set and no locks.
+ * A bucket that is full carries no state, so idle buckets are simply dropped.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    @Value("${orders.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${orders.rate-limit.period:1m}")
+    private Duration period;
+
+    @Value("${orders.rate-limit.user.default:60}")
+    private int userLimit;
+
+    @Value("${orders.rate-limit.user.admin:200}")
+    private int adminLimit;
+
+    @Value("${orders.rate-limit.global:12000}")
+    private int globalLimit;
+
+    @Value("${orders.rate-limit.max-tracked-users:100000}")
+    private int maxTrackedKeys;
+
+    private final Map<String, AtomicLong> userBuckets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> globalBuckets = new ConcurrentHashMap<>();
+
+
+    /**
+     * Takes a token for the user and operation, throws RateLimitExceededException when
+     * either the user's or the operation's global bucket is empty. Both buckets are checked
+     * before either is charged, so a request the global limit rejects costs the user nothing.
+     */
+    public void checkLimit(User user, String operation) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        int limit = PermissionUtils.isAdmin(user) ? adminLimit : userLimit;
+        String userKey = user.getId() + ":" + operation;
+        AtomicLong userBucket = userBuckets.get(userKey);
+        if (userBucket == null && userBuckets.size() < maxTrackedKeys) {
+            userBucket = userBuckets.computeIfAbsent(userKey, key -> new AtomicLong(now));
+        }
+        AtomicLong globalBucket = globalBuckets.computeIfAbsent(operation, key -> new AtomicLong(now));
+
+        long wait = waitFor(globalBucket, globalLimit, now);
+        // past the key cap new users are only held by the global limit
+        if (userBucket != null) {
+            wait = Math.max(wait, waitFor(userBucket, limit, now));
+        }
+        if (wait > 0) {
+            throw exceeded(operation, wait);
+        }
+
+        if (userBucket != null) {
+            take(userBucket, limit, now, operation);
+        }
+        try {
+            take(globalBucket, globalLimit, now, operation);
+        } catch (RateLimitExceededException e) {
+            // another request emptied the global bucket in between
+            if (userBucket != null) {
+                userBucket.addAndGet(-emissionInterval(limit));
+            }
+            throw e;
+        }
+    }
+
+
+    @Scheduled(fixedDelayString = "${orders.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int before = userBuckets.size();
+
+        userBuckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+
+        int evicted = before - userBuckets.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+
+    private void take(AtomicLong bucket, int limit, long now, String operation) {
+        long emissionInterval = emissionInterval(limit);
+
+        while (true) {
+            long fullAt = bucket.get();
+            long tat = fullAt - now > 0 ? fullAt : now;
+            long wait = tat - now - emissionInterval * (limit - 1);
+
+            if (wait > 0) {
+                throw exceeded(operation, wait);
+            }
+
+            if (bucket.compareAndSet(fullAt, tat + emissionInterval)) {
+                return;
+            }
+        }
+    }
+
+
+    // nanos until the bucket has a token again, 0 if it has one now
+    private long waitFor(AtomicLong bucket, int limit, long now) {
+        long fullAt = bucket.get();
+        long tat = fullAt - now > 0 ? fullAt : now;
+        return Math.max(tat - now - emissionInterval(limit) * (limit - 1), 0);
+    }
+
+
+    private long emissionInterval(int limit) {
+        return period.toNanos() / limit;
+    }
+
+
+    private static RateLimitExceededException exceeded(String operation, long waitNanos) {
+        return new RateLimitExceededException(operation,
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+    }
+}
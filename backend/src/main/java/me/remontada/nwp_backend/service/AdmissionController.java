@@ -0,0 +1,333 @@
+package me.remontada.nwp_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.datasource.PrimaryReads;
+import me.remontada.nwp_backend.model.OrderStatus;
+import me.remontada.nwp_backend.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * Keeps the number of admitted orders (placed or activated, not yet delivered or canceled)
+ * in memory, so admission is a compare-and-set instead of a count query and concurrent
+ * requests can not overshoot the limit.
+ *
+ * Orders over the limit can wait in a bounded FIFO queue (status WAITING) and are promoted
+ * as slots free up; new orders do not overtake it, and once it is full they are rejected.
+ *
+ * The counter and the queue are reconciled with the DB on startup and periodically. A
+ * reconcile only applies what it read if no admission commit was in flight while it ran
+ * (otherwise it can not tell whether the DB already saw that commit) and applies the
+ * counter as a delta, so admissions racing with it are never lost.
+ *
+ * The counter lives in this JVM. With several instances (orders.transitions.claim-enabled)
+ * each one only sees its own admissions and releases between reconciles, so the limit is
+ * enforced per instance rather than globally.
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    public static final int MAX_SIMULTANEOUS_ORDERS = 3;
+
+    public static final List<OrderStatus> ADMITTED_STATUSES = List.of(
+            OrderStatus.ORDERED, OrderStatus.PREPARING, OrderStatus.IN_DELIVERY
+    );
+
+    private static final int RECONCILE_ATTEMPTS = 5;
+    private static final long RECONCILE_RETRY_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // reconcile counts on the primary, not on a lagging replica
+    @Autowired
+    private PrimaryReads primaryReads;
+
+    @Value("${orders.admission.max-queue-depth:20}")
+    private int maxQueueDepth;
+
+    @Value("${orders.admission.expected-order-duration:30s}")
+    private Duration expectedOrderDuration;
+
+    @Value("${orders.transitions.claim-enabled:false}")
+    private boolean claimEnabled;
+
+    // admitted orders including those of transactions that have not completed yet
+    private final AtomicInteger admitted = new AtomicInteger();
+
+    private final Deque<Long> waitingOrders = new ConcurrentLinkedDeque<>();
+
+    // queued orders plus reservations of transactions that have not committed yet
+    private final AtomicInteger waitingReserved = new AtomicInteger();
+
+    private final Object completionLock = new Object();
+
+    // guarded by completionLock: admitted orders the DB has seen committed, commits in flight,
+    // and a counter bumped whenever such a commit starts or finishes
+    private int committed;
+    private int completing;
+    private long completions;
+
+
+    @PostConstruct
+    public void init() {
+        if (claimEnabled) {
+            log.warn("Claim mode is on: the simultaneous order limit is enforced per instance, " +
+                    "instances only see each other's orders when they reconcile");
+        }
+    }
+
+
+    public boolean hasCapacity() {
+        return admitted.get() < MAX_SIMULTANEOUS_ORDERS;
+    }
+
+
+    /**
+     * Takes a slot for the current transaction. The slot is handed back automatically if
+     * the transaction rolls back.
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = admitted.get();
+            if (current >= MAX_SIMULTANEOUS_ORDERS) {
+                return false;
+            }
+        } while (!admitted.compareAndSet(current, current + 1));
+
+        onCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                committed++;
+            } else {
+                release(1);
+            }
+        });
+
+        return true;
+    }
+
+
+    /**
+     * Takes a slot for a newly placed order. While orders wait (or reservations for the
+     * queue are in flight) a freed slot belongs to the head of the queue, so the new order
+     * has to queue behind them instead of grabbing it.
+     */
+    public boolean tryAcquireForNewOrder() {
+        return waitingReserved.get() == 0 && tryAcquire();
+    }
+
+
+    /**
+     * Frees slots once the current transaction commits (or right away outside a transaction).
+     */
+    public void releaseAfterCommit(int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        onCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                committed -= count;
+                release(count);
+            }
+        });
+    }
+
+
+    /**
+     * Reserves a place in the waiting queue for the current transaction; the order joins the
+     * queue once the transaction commits.
+     */
+    public boolean tryReserveWaiting(Long orderId) {
+        int current;
+        do {
+            current = waitingReserved.get();
+            if (current >= maxQueueDepth) {
+                return false;
+            }
+        } while (!waitingReserved.compareAndSet(current, current + 1));
+
+        onCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                waitingOrders.addLast(orderId);
+            } else {
+                waitingReserved.decrementAndGet();
+            }
+        });
+        return true;
+    }
+
+
+    public Long peekWaiting() {
+        return waitingOrders.peekFirst();
+    }
+
+
+    public void removeWaiting(Long orderId) {
+        synchronized (completionLock) {
+            completions++;
+            if (waitingOrders.remove(orderId)) {
+                waitingReserved.decrementAndGet();
+            }
+        }
+    }
+
+
+    /**
+     * Drops a canceled order from the waiting queue once the current transaction commits.
+     */
+    public void removeWaitingAfterCommit(Long orderId) {
+        onCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED && waitingOrders.remove(orderId)) {
+                waitingReserved.decrementAndGet();
+            }
+        });
+    }
+
+
+    /**
+     * 1-based position in the waiting queue, or null if the order is not waiting.
+     */
+    public Integer queuePosition(Long orderId) {
+        int position = 1;
+        for (Long waitingOrderId : waitingOrders) {
+            if (waitingOrderId.equals(orderId)) {
+                return position;
+            }
+            position++;
+        }
+        return null;
+    }
+
+
+    /**
+     * Rough start time: slots free up about every expected order duration / limit.
+     */
+    public LocalDateTime estimatedStartAt(Long orderId) {
+        Integer position = queuePosition(orderId);
+        if (position == null) {
+            return null;
+        }
+
+        int freeSlots = Math.max(MAX_SIMULTANEOUS_ORDERS - admitted.get(), 0);
+        int rounds = Math.max(position - freeSlots, 0);
+        return LocalDateTime.now().plus(expectedOrderDuration.multipliedBy(rounds).dividedBy(MAX_SIMULTANEOUS_ORDERS));
+    }
+
+
+    /**
+     * Brings the counter and the waiting queue in line with the DB. Gives up for this round
+     * when admission commits keep landing while the DB is read; the next round tries again.
+     */
+    public void reconcile() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                LockSupport.parkNanos(RECONCILE_RETRY_PAUSE_NANOS);
+            }
+
+            long startedAt;
+            synchronized (completionLock) {
+                if (completing > 0) {
+                    continue;
+                }
+                startedAt = completions;
+            }
+
+            long count = primaryReads.read(() -> orderRepository.countByStatusInAndActiveTrue(ADMITTED_STATUSES));
+            List<Long> waiting = primaryReads.read(() -> orderRepository.findIdsByStatusOrderByCreatedAt(OrderStatus.WAITING));
+
+            synchronized (completionLock) {
+                if (completing > 0 || completions != startedAt) {
+                    continue;
+                }
+
+                apply((int) count, waiting);
+                return;
+            }
+        }
+
+        log.debug("Skipped admission reconcile, admission commits kept landing while it ran");
+    }
+
+
+    public int admittedCount() {
+        return admitted.get();
+    }
+
+
+    // caller holds completionLock
+    private void apply(int count, List<Long> waiting) {
+        int drift = count - committed;
+        if (drift != 0) {
+            committed = count;
+            int previous = admitted.getAndUpdate(current -> Math.max(current + drift, 0));
+            log.info("Admission counter reconciled from {} to {}", previous, Math.max(previous + drift, 0));
+        }
+
+        // reservations still in flight stay counted
+        waitingReserved.addAndGet(waiting.size() - waitingOrders.size());
+        waitingOrders.clear();
+        waitingOrders.addAll(waiting);
+    }
+
+
+    /**
+     * Runs the action with the transaction's outcome once it completes (right away, as
+     * committed, outside a transaction). Its commit is tracked, so reconcile can tell
+     * whether the DB it read and the memory it corrects saw the same commits.
+     */
+    private void onCompletion(IntConsumer action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (completionLock) {
+                completions++;
+                action.accept(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean started;
+
+            @Override
+            public void beforeCompletion() {
+                synchronized (completionLock) {
+                    started = true;
+                    completing++;
+                    completions++;
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (completionLock) {
+                    action.accept(status);
+                    if (started) {
+                        completing--;
+                    }
+                    completions++;
+                }
+            }
+        });
+    }
+
+
+    private void release(int count) {
+        admitted.updateAndGet(current -> Math.max(current - count, 0));
+    }
+}
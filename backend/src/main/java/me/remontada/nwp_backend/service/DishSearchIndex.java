@@ -0,0 +1,357 @@
+package me.remontada.nwp_backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.model.Dish;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index over dish names and descriptions. Text is lower-cased and
+ * stripped of accents, so "cevapi" finds "Ćevapi". Results are ranked by how many of the
+ * query's trigrams a dish shares, name matches counting double.
+ *
+ * The index follows the menu snapshot, so it sees dish writes (and other instances' writes)
+ * exactly like the menu does. When the snapshot changes, the dishes that differ are removed
+ * and re-added in place. Only the first build, or a change set too large to patch, indexes
+ * the whole menu; the latter is built on a background thread while searches keep using the
+ * previous index, which is swapped out once the new one is complete.
+ */
+@Slf4j
+@Component
+public class DishSearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private MenuCache menuCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${menu.search.min-similarity:0.4}")
+    private double minSimilarity;
+
+    @Value("${menu.search.max-incremental-changes:1000}")
+    private int maxIncrementalChanges;
+
+    private volatile Index index = new Index(null);
+
+    // held by the one thread bringing the index up to date; searches never wait for it
+    private final ReentrantLock updating = new ReentrantLock();
+
+    private volatile boolean rebuilding;
+
+    private ExecutorService rebuilder;
+
+    private Timer queryTimer;
+
+
+    @PostConstruct
+    public void init() {
+        queryTimer = Timer.builder("menu.search.query").register(meterRegistry);
+        Gauge.builder("menu.search.index.dishes", this, indexer -> indexer.index.entries.size()).register(meterRegistry);
+        Gauge.builder("menu.search.index.trigrams", this, indexer -> indexer.index.postings.size()).register(meterRegistry);
+
+        rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dish-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+
+    /**
+     * Available dishes matching the query, best match first.
+     */
+    public List<Dish> search(String query) {
+        Index current = currentIndex();
+        return queryTimer.record(() -> current.search(normalize(query), minSimilarity));
+    }
+
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        // đ has no decomposition
+        return MARKS.matcher(decomposed).replaceAll("").replace('đ', 'd').trim().replaceAll("\\s+", " ");
+    }
+
+
+    static Set<String> trigrams(String normalized) {
+        Set<String> trigrams = new HashSet<>();
+        for (String word : WORD_SEPARATOR.split(normalized)) {
+            if (word.isEmpty()) {
+                continue;
+            }
+
+            // padded like pg_trgm, so word starts weigh more and short words still match
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+
+    private Index currentIndex() {
+        MenuSnapshot menu = menuCache.get();
+        if (index.builtFrom != menu) {
+            update(menu);
+        }
+        return index;
+    }
+
+
+    private void update(MenuSnapshot menu) {
+        // with nothing to serve yet the first searches wait for the build, later ones use
+        // the index as it is while another thread updates it
+        if (index.builtFrom == null) {
+            updating.lock();
+        } else if (!updating.tryLock()) {
+            return;
+        }
+
+        try {
+            Index current = index;
+            if (current.builtFrom == menu || rebuilding) {
+                return;
+            }
+
+            if (current.builtFrom == null) {
+                index = build(menu);
+                return;
+            }
+
+            List<Long> removed = new ArrayList<>();
+            for (Long dishId : current.entries.keySet()) {
+                Dish dish = menu.dishesById().get(dishId);
+                if (dish == null || !dish.isAvailable()) {
+                    removed.add(dishId);
+                }
+            }
+
+            List<Dish> changed = new ArrayList<>();
+            for (Dish dish : menu.availableDishes()) {
+                Entry entry = current.entries.get(dish.getId());
+                if (entry == null || !entry.dish().equals(dish)) {
+                    changed.add(dish);
+                }
+            }
+
+            if (removed.size() + changed.size() > maxIncrementalChanges) {
+                rebuildInBackground(menu);
+                return;
+            }
+
+            long start = System.nanoTime();
+            current.apply(menu, removed, changed);
+
+            log.debug("Updated dish search index to menu version {}: {} removed, {} added or changed in {} µs",
+                    menu.version(), removed.size(), changed.size(), (System.nanoTime() - start) / 1000);
+        } finally {
+            updating.unlock();
+        }
+    }
+
+
+    // caller holds updating
+    private void rebuildInBackground(MenuSnapshot menu) {
+        rebuilding = true;
+        rebuilder.execute(() -> {
+            try {
+                index = build(menu);
+            } catch (RuntimeException e) {
+                log.error("Rebuilding the dish search index failed: {}", e.getMessage(), e);
+            } finally {
+                rebuilding = false;
+            }
+        });
+    }
+
+
+    private static Index build(MenuSnapshot menu) {
+        long start = System.nanoTime();
+        Index built = new Index(menu);
+        menu.availableDishes().forEach(built::put);
+
+        log.debug("Built dish search index for menu version {}: {} dishes, {} trigrams in {} ms", menu.version(),
+                built.entries.size(), built.postings.size(), (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+
+
+    private record Entry(Dish dish, String name, String description, Set<String> nameTrigrams,
+                         Set<String> descriptionTrigrams) {
+    }
+
+
+    private record Match(Dish dish, double score) {
+    }
+
+
+    /**
+     * Filled without locking while it is built, then only changed through apply, which
+     * takes the write lock; searches hold the read lock.
+     */
+    private static final class Index {
+
+        private volatile MenuSnapshot builtFrom;
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+        Index(MenuSnapshot builtFrom) {
+            this.builtFrom = builtFrom;
+        }
+
+
+        void apply(MenuSnapshot menu, List<Long> removed, List<Dish> changed) {
+            lock.writeLock().lock();
+            try {
+                removed.forEach(this::remove);
+                changed.forEach(dish -> {
+                    remove(dish.getId());
+                    put(dish);
+                });
+                builtFrom = menu;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+
+        void put(Dish dish) {
+            String name = normalize(dish.getName());
+            String description = normalize(dish.getDescription());
+            Entry entry = new Entry(dish, name, description, trigrams(name), trigrams(description));
+            entries.put(dish.getId(), entry);
+
+            entry.nameTrigrams().forEach(trigram -> postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(dish.getId()));
+            entry.descriptionTrigrams().forEach(trigram -> postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(dish.getId()));
+        }
+
+
+        private void remove(Long dishId) {
+            Entry entry = entries.remove(dishId);
+            if (entry == null) {
+                return;
+            }
+
+            entry.nameTrigrams().forEach(trigram -> removePosting(trigram, dishId));
+            entry.descriptionTrigrams().forEach(trigram -> removePosting(trigram, dishId));
+        }
+
+
+        private void removePosting(String trigram, Long dishId) {
+            Set<Long> dishIds = postings.get(trigram);
+            if (dishIds != null && dishIds.remove(dishId) && dishIds.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+
+
+        List<Dish> search(String query, double minSimilarity) {
+            if (query.isEmpty()) {
+                return List.of();
+            }
+
+            lock.readLock().lock();
+            try {
+                return match(query, minSimilarity);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+
+        private List<Dish> match(String query, double minSimilarity) {
+
+            Set<String> queryTrigrams = trigrams(query);
+            Set<Long> candidates = new HashSet<>();
+
+            if (query.length() < 3) {
+                // too few trigrams to narrow anything down, plain substring scan
+                entries.values().stream()
+                        .filter(entry -> entry.name().contains(query) || entry.description().contains(query))
+                        .forEach(entry -> candidates.add(entry.dish().getId()));
+            } else {
+                queryTrigrams.forEach(trigram -> candidates.addAll(postings.getOrDefault(trigram, Set.of())));
+            }
+
+            List<Match> matches = new ArrayList<>();
+            for (Long dishId : candidates) {
+                Entry entry = entries.get(dishId);
+                double nameSimilarity = similarity(queryTrigrams, entry.nameTrigrams());
+                double descriptionSimilarity = similarity(queryTrigrams, entry.descriptionTrigrams());
+                boolean nameContains = entry.name().contains(query);
+                boolean descriptionContains = entry.description().contains(query);
+
+                if (!nameContains && !descriptionContains
+                        && Math.max(nameSimilarity, descriptionSimilarity) < minSimilarity) {
+                    continue;
+                }
+
+                double score = 2 * nameSimilarity + descriptionSimilarity
+                        + (nameContains ? 2 : 0)
+                        + (entry.name().startsWith(query) ? 1 : 0)
+                        + (descriptionContains ? 0.5 : 0);
+                matches.add(new Match(entry.dish(), score));
+            }
+
+            return matches.stream()
+                    .sorted(Comparator.comparingDouble(Match::score).reversed()
+                            .thenComparing(match -> match.dish().getName()))
+                    .map(Match::dish)
+                    .toList();
+        }
+
+
+        private static double similarity(Set<String> queryTrigrams, Set<String> trigrams) {
+            if (queryTrigrams.isEmpty() || trigrams.isEmpty()) {
+                return 0;
+            }
+
+            int shared = 0;
+            for (String trigram : queryTrigrams) {
+                if (trigrams.contains(trigram)) {
+                    shared++;
+                }
+            }
+            return (double) shared / queryTrigrams.size();
+        }
+    }
+}
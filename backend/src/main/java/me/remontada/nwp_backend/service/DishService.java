@@ -1,5 +1,6 @@
 package me.remontada.nwp_backend.service;
 
+import me.remontada.nwp_backend.dto.response.DishSuggestionDTO;
 import me.remontada.nwp_backend.model.Dish;
 
 import java.util.List;
@@ -26,6 +27,15 @@ public interface DishService {
     List<String> getAllCategories();
 
 
+    String getMenuETag();
+
+
+    MenuRenderer.RenderedMenu getRenderedMenu(boolean groupedByCategory);
+
+
+    List<DishSuggestionDTO> suggestDishes(String prefix, int limit);
+
+
     Dish createDish(Dish dish);
 
 
@@ -1,14 +1,17 @@
 package me.remontada.nwp_backend.service;
 
 import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.dto.response.DishSuggestionDTO;
 import me.remontada.nwp_backend.model.Dish;
 import me.remontada.nwp_backend.repository.DishRepository;
 import me.remontada.nwp_backend.service.DishService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -20,56 +23,90 @@ public class DishServiceImpl implements DishService {
     @Autowired
     private DishRepository dishRepository;
 
+    @Autowired
+    private MenuCache menuCache;
+
+    @Autowired
+    private DishSearchIndex dishSearchIndex;
+
+    @Autowired
+    private MenuSuggester menuSuggester;
+
+    @Autowired
+    private MenuRenderer menuRenderer;
+
+    // menu reads are served from the snapshot and run without a transaction, so they do not
+    // even check out a connection; MenuCache opens its own when it has to rebuild
+
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Dish> getAllAvailableDishes() {
-        return dishRepository.findByAvailableTrueOrderByCategory();
+        return menuCache.get().availableDishes();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Dish> getAllDishes() {
-        return dishRepository.findAll();
+        return menuCache.get().allDishes();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Dish getDishById(Long id) {
 
-        Optional<Dish> dishOpt = dishRepository.findById(id);
-        if (dishOpt.isEmpty()) {
+        Dish dish = menuCache.get().dishesById().get(id);
+        if (dish == null) {
             throw new RuntimeException("Dish not found with id: " + id);
         }
 
-        return dishOpt.get();
+        return dish;
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Dish> getDishesByCategory(String category, boolean onlyAvailable) {
 
-        if (onlyAvailable) {
-            return dishRepository.findByCategoryAndAvailableTrueOrderByName(category);
-        } else {
-            return dishRepository.findByCategoryOrderByName(category);
-        }
+        MenuSnapshot menu = menuCache.get();
+        Map<String, List<Dish>> byCategory = onlyAvailable ? menu.availableDishesByCategory() : menu.dishesByCategory();
+        return byCategory.getOrDefault(category, List.of());
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Dish> searchDishesByName(String name) {
 
         if (name == null || name.trim().isEmpty()) {
             return getAllAvailableDishes();
         }
 
-        return dishRepository.findByNameContainingIgnoreCaseAndAvailableTrue(name.trim());
+        return dishSearchIndex.search(name);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<String> getAllCategories() {
-        return dishRepository.findDistinctCategories();
+        return menuCache.get().categories();
+    }
+
+    /**
+     * Strong ETag of the menu endpoints, changes whenever any dish changes.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String getMenuETag() {
+        return "\"menu-" + menuCache.get().fingerprint() + "\"";
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public MenuRenderer.RenderedMenu getRenderedMenu(boolean groupedByCategory) {
+        return groupedByCategory ? menuRenderer.availableDishesByCategory() : menuRenderer.availableDishes();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<DishSuggestionDTO> suggestDishes(String prefix, int limit) {
+        return menuSuggester.suggest(prefix, limit);
     }
 
     @Override
@@ -82,6 +119,7 @@ public class DishServiceImpl implements DishService {
         }
 
         Dish savedDish = dishRepository.save(dish);
+        menuCache.invalidate();
 
         return savedDish;
     }
@@ -89,7 +127,7 @@ public class DishServiceImpl implements DishService {
     @Override
     public Dish updateDish(Long id, Dish dishData) {
 
-        Dish existingDish = getDishById(id);
+        Dish existingDish = findDish(id);
 
         validateDish(dishData);
 
@@ -103,6 +141,7 @@ public class DishServiceImpl implements DishService {
         }
 
         Dish savedDish = dishRepository.save(existingDish);
+        menuCache.invalidate();
 
         return savedDish;
     }
@@ -110,23 +149,36 @@ public class DishServiceImpl implements DishService {
     @Override
     public void deleteDish(Long id) {
 
-        Dish dish = getDishById(id);
+        Dish dish = findDish(id);
 
         dishRepository.delete(dish);
+        menuCache.invalidate();
     }
 
     @Override
     public Dish updateDishAvailability(Long id, boolean available) {
 
-        Dish dish = getDishById(id);
+        Dish dish = findDish(id);
         dish.setAvailable(available);
 
         Dish savedDish = dishRepository.save(dish);
+        menuCache.invalidate();
 
         return savedDish;
     }
 
 
+    // writes work on the managed entity, never on the shared snapshot copy
+    private Dish findDish(Long id) {
+        Optional<Dish> dishOpt = dishRepository.findById(id);
+        if (dishOpt.isEmpty()) {
+            throw new RuntimeException("Dish not found with id: " + id);
+        }
+
+        return dishOpt.get();
+    }
+
+
     private void validateDish(Dish dish) {
         if (dish.getName() == null || dish.getName().trim().isEmpty()) {
             throw new RuntimeException("Dish name is required");
@@ -0,0 +1,154 @@
+package me.remontada.nwp_backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.datasource.PrimaryReads;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.repository.DishRepository;
+import me.remontada.nwp_backend.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the current MenuSnapshot. Dish writes bump the version once they commit; the next
+ * read rebuilds the snapshot with one query, every other read is served from memory.
+ * Concurrent misses on the same version share one rebuild.
+ *
+ * A snapshot built while a write committed is handed out once but never installed, so a
+ * stale menu can not outlive the write. The TTL only matters when several instances
+ * share the DB, since each one only sees its own writes.
+ */
+@Slf4j
+@Component
+public class MenuCache {
+
+    @Autowired
+    private DishRepository dishRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // the rebuild reads from the primary: a lagging replica would bake the old menu into the new version
+    @Autowired
+    private PrimaryReads primaryReads;
+
+    @Value("${menu.cache.ttl:5m}")
+    private Duration ttl;
+
+    private final AtomicLong version = new AtomicLong(1);
+
+    private volatile Entry current;
+
+    private final SingleFlight<Long, MenuSnapshot> rebuilds = new SingleFlight<>();
+
+    private Counter hits;
+    private Counter misses;
+    private Timer rebuildTimer;
+
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("menu.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("menu.cache.requests").tag("result", "miss").register(meterRegistry);
+        rebuildTimer = Timer.builder("menu.cache.rebuild").register(meterRegistry);
+
+        Gauge.builder("menu.cache.version", version, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("menu.cache.rebuilds.in.flight", rebuilds, SingleFlight::inFlight).register(meterRegistry);
+    }
+
+
+    public MenuSnapshot get() {
+        Entry entry = current;
+        if (isCurrent(entry)) {
+            hits.increment();
+            return entry.snapshot();
+        }
+
+        misses.increment();
+        // a menu change at opening time makes every request miss at once; one of them
+        // rebuilds, the others wait for its snapshot
+        long requested = version.get();
+        return rebuilds.load(requested, () -> rebuild(requested));
+    }
+
+
+    public long version() {
+        return version.get();
+    }
+
+
+    /**
+     * Marks the menu as changed once the current transaction commits.
+     */
+    public void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            version.incrementAndGet();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+
+    private MenuSnapshot rebuild(long buildVersion) {
+        // a rebuild of this version may have finished just before this one started
+        Entry previous = current;
+        if (isCurrent(previous)) {
+            return previous.snapshot();
+        }
+
+        long start = System.nanoTime();
+
+        List<Dish> dishes = primaryReads.read(dishRepository::findAll);
+        MenuSnapshot built = MenuSnapshot.of(buildVersion, dishes);
+
+        // an unchanged menu keeps its snapshot instance, so the search index, suggestion
+        // trie and rendered bytes keyed off it are not rebuilt on every TTL expiry
+        boolean unchanged = previous != null && previous.snapshot().fingerprint().equals(built.fingerprint());
+        if (unchanged) {
+            built = previous.snapshot();
+        }
+
+        rebuildTimer.record(Duration.ofNanos(System.nanoTime() - start));
+
+        if (version.get() == buildVersion) {
+            current = new Entry(built, buildVersion, start);
+        }
+
+        if (unchanged) {
+            log.debug("Menu unchanged at version {}, kept the snapshot of version {}", buildVersion, built.version());
+        } else {
+            log.info("Rebuilt menu snapshot version {} ({} dishes)", buildVersion, dishes.size());
+        }
+        return built;
+    }
+
+
+    private boolean isCurrent(Entry entry) {
+        if (entry == null || entry.version() != version.get()) {
+            return false;
+        }
+        return ttl.isZero() || System.nanoTime() - entry.loadedAtNanos() < ttl.toNanos();
+    }
+
+
+    // the snapshot is the one built for an earlier version when the menu did not change since
+    private record Entry(MenuSnapshot snapshot, long version, long loadedAtNanos) {
+    }
+}
@@ -0,0 +1,120 @@
+package me.remontada.nwp_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.model.Dish;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The available menu rendered to JSON once per snapshot, so the menu endpoints write
+ * ready-made bytes instead of running the whole dish list through Jackson on every request.
+ * A gzipped copy is kept next to the plain one for clients that accept it.
+ */
+@Slf4j
+@Component
+public class MenuRenderer {
+
+    @Autowired
+    private MenuCache menuCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${menu.render.gzip-enabled:true}")
+    private boolean gzipEnabled;
+
+    private volatile Rendered rendered;
+
+
+    public RenderedMenu availableDishes() {
+        return current().availableDishes();
+    }
+
+
+    public RenderedMenu availableDishesByCategory() {
+        return current().byCategory();
+    }
+
+
+    private Rendered current() {
+        MenuSnapshot menu = menuCache.get();
+        Rendered current = rendered;
+        if (current != null && current.menu() == menu) {
+            return current;
+        }
+        return render(menu);
+    }
+
+
+    private synchronized Rendered render(MenuSnapshot menu) {
+        Rendered current = rendered;
+        if (current != null && current.menu() == menu) {
+            return current;
+        }
+
+        long start = System.nanoTime();
+
+        // categories in the same order as /categories
+        Map<String, List<Dish>> byCategory = new LinkedHashMap<>();
+        for (String category : menu.categories()) {
+            byCategory.put(category, menu.availableDishesByCategory().get(category));
+        }
+
+        Rendered built = new Rendered(menu,
+                render("\"menu-" + menu.fingerprint(), menu.availableDishes()),
+                render("\"menu-by-category-" + menu.fingerprint(), byCategory));
+        rendered = built;
+
+        log.debug("Rendered menu version {}: {} bytes, {} gzipped, in {} µs", menu.version(),
+                built.availableDishes().json().length,
+                built.availableDishes().gzip() != null ? built.availableDishes().gzip().length : 0,
+                (System.nanoTime() - start) / 1000);
+        return built;
+    }
+
+
+    private RenderedMenu render(String etagPrefix, Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to render menu", e);
+        }
+
+        return new RenderedMenu(etagPrefix + "\"", json, gzipEnabled ? gzip(json) : null, etagPrefix + "-gzip\"");
+    }
+
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+
+    /**
+     * The two encodings are different representations, so each one gets its own ETag.
+     * gzip is null when pre-compression is disabled.
+     */
+    public record RenderedMenu(String etag, byte[] json, byte[] gzip, String gzipETag) {
+    }
+
+
+    private record Rendered(MenuSnapshot menu, RenderedMenu availableDishes, RenderedMenu byCategory) {
+    }
+}
@@ -0,0 +1,91 @@
+package me.remontada.nwp_backend.service;
+
+import me.remontada.nwp_backend.model.Dish;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Immutable view of the whole menu at one version. Every read the menu endpoints need is
+ * precomputed, so serving them is a map lookup.
+ */
+public record MenuSnapshot(long version,
+                           String fingerprint,
+                           List<Dish> allDishes,
+                           List<Dish> availableDishes,
+                           Map<Long, Dish> dishesById,
+                           Map<String, List<Dish>> dishesByCategory,
+                           Map<String, List<Dish>> availableDishesByCategory,
+                           List<String> categories) {
+
+
+    public static MenuSnapshot of(long version, List<Dish> dishes) {
+        List<Dish> all = dishes.stream()
+                .map(MenuSnapshot::copy)
+                .sorted(Comparator.comparing(Dish::getId))
+                .toList();
+
+        List<Dish> available = all.stream()
+                .filter(Dish::isAvailable)
+                .sorted(Comparator.comparing(Dish::getCategory).thenComparing(Dish::getId))
+                .toList();
+
+        Map<Long, Dish> byId = all.stream()
+                .collect(Collectors.toUnmodifiableMap(Dish::getId, Function.identity()));
+
+        List<String> categories = available.stream()
+                .map(Dish::getCategory)
+                .distinct()
+                .sorted()
+                .toList();
+
+        return new MenuSnapshot(version, fingerprint(all), all, available, byId,
+                groupByCategory(all), groupByCategory(available), categories);
+    }
+
+
+    private static Map<String, List<Dish>> groupByCategory(List<Dish> dishes) {
+        Map<String, List<Dish>> grouped = dishes.stream()
+                .sorted(Comparator.comparing(Dish::getName).thenComparing(Dish::getId))
+                .collect(Collectors.groupingBy(Dish::getCategory, LinkedHashMap::new, Collectors.toUnmodifiableList()));
+        return Map.copyOf(grouped);
+    }
+
+
+    /**
+     * Hash of every dish field. Unlike the version counter it is the same on every instance
+     * for the same menu, so it can be used as an ETag behind a load balancer.
+     */
+    private static String fingerprint(List<Dish> dishes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (Dish dish : dishes) {
+            String row = dish.getId() + "|" + dish.getName() + "|" + dish.getDescription() + "|" +
+                    dish.getPrice().toPlainString() + "|" + dish.getCategory() + "|" + dish.isAvailable() + "\n";
+            digest.update(row.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+
+    // detached copies, so nothing a persistence context does later can leak into the snapshot
+    static Dish copy(Dish dish) {
+        return new Dish(dish.getId(), dish.getName(), dish.getDescription(), dish.getPrice(),
+                dish.getCategory(), dish.getAvailable());
+    }
+}
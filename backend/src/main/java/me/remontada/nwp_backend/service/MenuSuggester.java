@@ -0,0 +1,199 @@
+package me.remontada.nwp_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.datasource.PrimaryReads;
+import me.remontada.nwp_backend.dto.response.DishSuggestionDTO;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.repository.OrderItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type-ahead over available dish names and categories. Every word start of a name is a
+ * key in a prefix trie whose nodes keep their top suggestions by order popularity
+ * precomputed, so a lookup is one walk down the trie and never touches the DB.
+ *
+ * The trie is rebuilt from the menu snapshot whenever the menu changes; popularity is
+ * refreshed from order history in the background.
+ */
+@Slf4j
+@Component
+public class MenuSuggester {
+
+    private static final Comparator<DishSuggestionDTO> BY_POPULARITY =
+            Comparator.comparingLong(DishSuggestionDTO::getPopularity).reversed()
+                    .thenComparing(DishSuggestionDTO::getText);
+
+    @Autowired
+    private MenuCache menuCache;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private PrimaryReads primaryReads;
+
+    @Value("${menu.suggest.max-results:10}")
+    private int maxResults;
+
+    private volatile Map<Long, Long> popularity = Map.of();
+
+    private volatile MenuSnapshot builtFrom;
+    private volatile Map<Long, Long> builtWith;
+    private volatile Node root = new Node();
+
+
+    public List<DishSuggestionDTO> suggest(String prefix, int limit) {
+        String key = DishSearchIndex.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        Node node = currentTrie();
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+
+        if (node == null) {
+            return List.of();
+        }
+
+        return node.top.subList(0, Math.min(Math.max(limit, 1), node.top.size()));
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${menu.suggest.popularity-refresh-interval-ms:600000}",
+            initialDelayString = "${menu.suggest.popularity-refresh-interval-ms:600000}")
+    public void refreshPopularity() {
+        Map<Long, Long> loaded = new HashMap<>();
+        primaryReads.read(orderItemRepository::findDishPopularity)
+                .forEach(row -> loaded.put(row.getDishId(), row.getOrdered()));
+        popularity = loaded;
+    }
+
+
+    private Node currentTrie() {
+        MenuSnapshot menu = menuCache.get();
+        if (menu != builtFrom || popularity != builtWith) {
+            rebuild(menu);
+        }
+        return root;
+    }
+
+
+    private synchronized void rebuild(MenuSnapshot menu) {
+        Map<Long, Long> weights = popularity;
+        if (menu == builtFrom && weights == builtWith) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Node trie = new Node();
+
+        Map<String, Long> categoryPopularity = new HashMap<>();
+        for (Dish dish : menu.availableDishes()) {
+            long ordered = weights.getOrDefault(dish.getId(), 0L);
+            categoryPopularity.merge(dish.getCategory(), ordered, Long::sum);
+            insert(trie, dish.getName(),
+                    new DishSuggestionDTO(dish.getName(), "DISH", dish.getId(), dish.getCategory(), ordered));
+        }
+
+        for (String category : menu.categories()) {
+            insert(trie, category, new DishSuggestionDTO(category, "CATEGORY", null, category,
+                    categoryPopularity.getOrDefault(category, 0L)));
+        }
+
+        root = trie;
+        builtFrom = menu;
+        builtWith = weights;
+
+        log.debug("Built suggestion trie for menu version {} in {} µs", menu.version(), (System.nanoTime() - start) / 1000);
+    }
+
+
+    /**
+     * Adds the suggestion under the start of every word, so "piz" also finds "Margherita Pizza".
+     */
+    private void insert(Node trie, String text, DishSuggestionDTO suggestion) {
+        String normalized = DishSearchIndex.normalize(text);
+
+        for (int start = 0; start < normalized.length(); start++) {
+            if (start > 0 && Character.isLetterOrDigit(normalized.charAt(start - 1))) {
+                continue;
+            }
+
+            Node node = trie;
+            for (int i = start; i < normalized.length(); i++) {
+                node = node.childOrCreate(normalized.charAt(i));
+                node.offer(suggestion, maxResults);
+            }
+        }
+    }
+
+
+    /**
+     * Children are kept in a sorted char array next to the node array instead of a map,
+     * which keeps the per-node footprint small.
+     */
+    private static final class Node {
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private List<DishSuggestionDTO> top = List.of();
+
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+
+        Node childOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertAt = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+            Node child = new Node();
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+
+        void offer(DishSuggestionDTO suggestion, int maxResults) {
+            // the same dish can reach a node through two of its words
+            if (top.contains(suggestion)) {
+                return;
+            }
+
+            List<DishSuggestionDTO> merged = new ArrayList<>(top.size() + 1);
+            merged.addAll(top);
+            merged.add(suggestion);
+            merged.sort(BY_POPULARITY);
+            top = List.copyOf(merged.subList(0, Math.min(maxResults, merged.size())));
+        }
+    }
+}
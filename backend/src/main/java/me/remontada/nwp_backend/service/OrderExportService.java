@@ -0,0 +1,260 @@
+package me.remontada.nwp_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams order history straight from a forward-only JDBC cursor to the response, one
+ * order at a time, so memory stays flat however many rows match. No entities are
+ * involved, so nothing piles up in a persistence context.
+ *
+ * Exports run on their own small connection pools (see DataSourceConfig) and never take
+ * connections from the pools that serve regular requests.
+ */
+@Slf4j
+@Service
+public class OrderExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final String EXPORT_SQL = "SELECT o.id, o.status, o.active, o.created_at, o.scheduled_for, o.total_amount, " +
+            "u.id AS user_id, u.email, i.quantity, i.price_at_time, d.id AS dish_id, d.name AS dish_name " +
+            "FROM orders o JOIN users u ON u.id = o.created_by " +
+            "LEFT JOIN order_items i ON i.order_id = o.id " +
+            "LEFT JOIN dishes d ON d.id = i.dish_id";
+
+    private static final String CSV_HEADER = "order_id,status,active,created_at,scheduled_for,user_id,user_email," +
+            "dish_id,dish_name,quantity,price_at_time";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("exportDataSource")
+    private DataSource dataSource;
+
+    @Value("${orders.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private JdbcTemplate jdbcTemplate;
+
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+
+    public void export(List<OrderStatus> statuses, LocalDateTime dateFrom, LocalDateTime dateTo, Long userId,
+                       Format format, OutputStream out) {
+
+        StringBuilder sql = new StringBuilder(EXPORT_SQL).append(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+
+        if (userId != null) {
+            sql.append(" AND o.created_by = ?");
+            params.add(userId);
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            sql.append(" AND o.status IN (").append(String.join(", ", statuses.stream().map(s -> "?").toList())).append(")");
+            statuses.forEach(status -> params.add(status.name()));
+        }
+        if (dateFrom != null) {
+            sql.append(" AND o.created_at >= ?");
+            params.add(dateFrom);
+        }
+        if (dateTo != null) {
+            sql.append(" AND o.created_at <= ?");
+            params.add(dateTo);
+        }
+        sql.append(" ORDER BY o.created_at, o.id, i.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        ExportWriter exportWriter = new ExportWriter(writer, format);
+
+        long start = System.currentTimeMillis();
+        try {
+            exportWriter.start();
+            jdbcTemplate.query(sql.toString(), exportWriter, params.toArray());
+            exportWriter.finish();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Exported {} orders as {} in {} ms", exportWriter.orderCount, format, System.currentTimeMillis() - start);
+    }
+
+
+    public record ExportedItem(Long dishId, String dishName, Integer quantity, BigDecimal priceAtTime) {
+    }
+
+
+    @Data
+    public static class ExportedOrder {
+        private Long id;
+        private String status;
+        private Boolean active;
+        private LocalDateTime createdAt;
+        private LocalDateTime scheduledFor;
+        private Long createdById;
+        private String createdByEmail;
+        private BigDecimal totalAmount;
+        private List<ExportedItem> items = new ArrayList<>();
+    }
+
+
+    /**
+     * Rows arrive ordered by order, so an order is complete as soon as the next one starts;
+     * only the current order is kept in memory.
+     */
+    private class ExportWriter implements RowCallbackHandler {
+
+        private final Writer writer;
+        private final Format format;
+
+        private ExportedOrder current;
+        private Long currentOrderId;
+        private long orderCount;
+
+
+        ExportWriter(Writer writer, Format format) {
+            this.writer = writer;
+            this.format = format;
+        }
+
+
+        void start() throws IOException {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+        }
+
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong("id");
+            boolean newOrder = currentOrderId == null || currentOrderId != orderId;
+            currentOrderId = orderId;
+
+            try {
+                if (format == Format.CSV) {
+                    if (newOrder) {
+                        orderCount++;
+                    }
+                    writeCsvRow(rs);
+                    return;
+                }
+
+                if (newOrder) {
+                    if (current != null) {
+                        writeJsonLine(current);
+                    }
+                    current = new ExportedOrder();
+                    current.setId(orderId);
+                    current.setStatus(rs.getString("status"));
+                    current.setActive(rs.getBoolean("active"));
+                    current.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+                    current.setScheduledFor(rs.getObject("scheduled_for", LocalDateTime.class));
+                    current.setCreatedById(rs.getLong("user_id"));
+                    current.setCreatedByEmail(rs.getString("email"));
+                    current.setTotalAmount(rs.getBigDecimal("total_amount"));
+                }
+
+                long dishId = rs.getLong("dish_id");
+                if (!rs.wasNull()) {
+                    ExportedItem item = new ExportedItem(dishId, rs.getString("dish_name"),
+                            rs.getInt("quantity"), rs.getBigDecimal("price_at_time"));
+                    current.getItems().add(item);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        void finish() throws IOException {
+            if (current != null) {
+                writeJsonLine(current);
+                current = null;
+            }
+        }
+
+
+        private void writeJsonLine(ExportedOrder order) throws IOException {
+            writer.write(objectMapper.writeValueAsString(order));
+            writer.write('\n');
+            orderCount++;
+        }
+
+
+        private void writeCsvRow(ResultSet rs) throws SQLException, IOException {
+            writer.write(String.join(",",
+                    String.valueOf(rs.getLong("id")),
+                    rs.getString("status"),
+                    String.valueOf(rs.getBoolean("active")),
+                    csvValue(rs.getObject("created_at", LocalDateTime.class)),
+                    csvValue(rs.getObject("scheduled_for", LocalDateTime.class)),
+                    String.valueOf(rs.getLong("user_id")),
+                    csvValue(neutralized(rs.getString("email"))),
+                    csvValue(rs.getObject("dish_id")),
+                    csvValue(neutralized(rs.getString("dish_name"))),
+                    csvValue(rs.getObject("quantity")),
+                    csvValue(rs.getBigDecimal("price_at_time"))));
+            writer.write('\n');
+        }
+
+
+        /**
+         * User-entered text starting with =, +, -, @ (or a tab / carriage return) would be
+         * read as a formula by spreadsheet apps, so it is prefixed with a quote.
+         */
+        private String neutralized(String text) {
+            if (text == null || text.isEmpty() || "=+-@\t\r".indexOf(text.charAt(0)) < 0) {
+                return text;
+            }
+            return "'" + text;
+        }
+
+
+        private String csvValue(Object value) {
+            if (value == null) {
+                return "";
+            }
+
+            String text = value.toString();
+            if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+                return "\"" + text.replace("\"", "\"\"") + "\"";
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package me.remontada.nwp_backend.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+
+@Getter
+@AllArgsConstructor
+public class OrderScheduledEvent {
+
+    private final Long orderId;
+
+    private final LocalDateTime scheduledFor;
+}
@@ -1,9 +1,22 @@
 package me.remontada.nwp_backend.service;
 
 import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.datasource.PrimaryReads;
+import me.remontada.nwp_backend.model.OrderStatusTransition;
+import me.remontada.nwp_backend.repository.OrderStatusTransitionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 @Slf4j
@@ -13,15 +26,194 @@ public class OrderSchedulerService {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderStatusTransitionRepository transitionRepository;
+
+    @Autowired
+    private TimingWheel timingWheel;
+
+    @Autowired
+    private StatusTransitionDispatcher transitionDispatcher;
+
+    @Autowired
+    private ScheduledOrderQueue scheduledOrderQueue;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private PrimaryReads primaryReads;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${orders.scheduled.retry-delay:60s}")
+    private Duration scheduledOrderRetryDelay;
+
+    @Value("${orders.transitions.retention:24h}")
+    private Duration transitionRetention;
 
-    @Scheduled(fixedDelay = 60000)
+    @Value("${orders.transitions.compaction-chunk-size:1000}")
+    private int compactionChunkSize;
+
+    @Value("${orders.totals.backfill-chunk-size:1000}")
+    private int backfillChunkSize;
+
+
+    /**
+     * Activates scheduled orders from the in-memory queue; only touches the DB when
+     * something is due. Orders that could not be activated are retried later.
+     */
+    @Scheduled(fixedRate = 1000)
     public void processScheduledOrders() {
-        orderService.processScheduledOrders();
+        List<Long> dueOrderIds = scheduledOrderQueue.pollDue(LocalDateTime.now());
+        if (dueOrderIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> failedOrderIds;
+        try {
+            failedOrderIds = orderService.activateScheduledOrders(dueOrderIds);
+        } catch (RuntimeException e) {
+            // the whole batch rolled back, none of them was activated
+            log.error("Activating scheduled orders {} failed, retrying: {}", dueOrderIds, e.getMessage());
+            failedOrderIds = dueOrderIds;
+        }
+
+        LocalDateTime retryAt = LocalDateTime.now().plus(scheduledOrderRetryDelay);
+        failedOrderIds.forEach(orderId -> scheduledOrderQueue.add(orderId, retryAt));
+    }
+
+
+    /**
+     * Safety net for overdue scheduled orders the queue lost track of (e.g. ids dropped
+     * by a failure the retry did not cover). Normal activation runs off the queue.
+     */
+    @Scheduled(fixedDelayString = "${orders.scheduled.catch-up-interval-ms:60000}",
+            initialDelayString = "${orders.scheduled.catch-up-interval-ms:60000}")
+    public void catchUpScheduledOrders() {
+        int added = scheduledOrderQueue.addMissingOverdue(LocalDateTime.now());
+        if (added > 0) {
+            log.warn("Re-queued {} overdue scheduled orders", added);
+        }
     }
 
 
-    @Scheduled(fixedRate = 5000)
+    /**
+     * Moves waiting orders into the kitchen in FIFO order while there are free slots.
+     */
+    @Scheduled(fixedRate = 1000)
+    public void promoteWaitingOrders() {
+        Long orderId;
+        while (admissionController.hasCapacity() && (orderId = admissionController.peekWaiting()) != null) {
+            if (!orderService.promoteWaitingOrder(orderId)) {
+                break;
+            }
+            admissionController.removeWaiting(orderId);
+        }
+    }
+
+
+    @Scheduled(fixedDelayString = "${orders.scheduled.refresh-interval-ms:300000}")
+    public void loadScheduledOrderWindow() {
+        scheduledOrderQueue.extendWindow();
+    }
+
+
+    /**
+     * Safety net for transitions the wheel does not know about (e.g. rows written by
+     * another instance). Normal transitions are fired by the timing wheel.
+     */
+    @Scheduled(fixedDelayString = "${orders.transitions.sweep-interval-ms:60000}")
     public void processStatusTransitions() {
-        orderService.processStatusTransitions();
+        transitionDispatcher.sweep();
+    }
+
+
+    /**
+     * Deletes processed transitions past the retention period in small chunks, each in its
+     * own transaction, so the table only holds in-flight rows and recent history.
+     */
+    @Scheduled(fixedDelayString = "${orders.transitions.compaction-interval-ms:3600000}")
+    public void compactStatusTransitions() {
+        LocalDateTime olderThan = LocalDateTime.now().minus(transitionRetention);
+
+        int deleted;
+        int total = 0;
+        do {
+            deleted = orderService.deleteProcessedTransitions(olderThan, compactionChunkSize);
+            total += deleted;
+        } while (deleted == compactionChunkSize);
+
+        if (total > 0) {
+            log.info("Deleted {} processed status transitions older than {}", total, olderThan);
+        }
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingTransitions() {
+        List<OrderStatusTransition> pending = primaryReads.read(transitionRepository::findByProcessedFalse);
+        pending.forEach(this::register);
+
+        log.info("Loaded {} pending status transitions into the timing wheel", pending.size());
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${orders.admission.reconcile-interval-ms:60000}")
+    public void reconcileAdmissions() {
+        admissionController.reconcile();
+    }
+
+
+    /**
+     * Fills totalAmount / totalItems of orders created before they were stored, a chunk per
+     * transaction. New orders get their totals when they are placed. Runs on the scheduling
+     * pool, so a long history does not hold up the other startup listeners (timing wheel,
+     * admissions, scheduled order window).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOrderTotalsBackfill() {
+        taskScheduler.schedule(this::backfillOrderTotals, Instant.now());
+    }
+
+
+    public void backfillOrderTotals() {
+        int updated;
+        int total = 0;
+        do {
+            updated = orderService.backfillOrderTotals(backfillChunkSize);
+            total += updated;
+        } while (updated == backfillChunkSize);
+
+        if (total > 0) {
+            log.info("Backfilled totals of {} orders", total);
+        }
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScheduledOrders() {
+        scheduledOrderQueue.loadInitialWindow();
+    }
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderScheduled(OrderScheduledEvent event) {
+        scheduledOrderQueue.offer(event.getOrderId(), event.getScheduledFor());
+    }
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusTransitionScheduled(StatusTransitionScheduledEvent event) {
+        timingWheel.schedule(event.getScheduledFor(),
+                () -> transitionDispatcher.dispatch(event.getTransitionId(), event.getOrderId()));
+    }
+
+
+    private void register(OrderStatusTransition transition) {
+        timingWheel.schedule(transition.getScheduledFor(),
+                () -> transitionDispatcher.dispatch(transition.getId(), transition.getOrderId()));
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,13 @@
 package me.remontada.nwp_backend.service;
 
 import me.remontada.nwp_backend.dto.OrderItemRequest;
+import me.remontada.nwp_backend.dto.response.OrderResponseDTO;
 import me.remontada.nwp_backend.model.Order;
 import me.remontada.nwp_backend.model.OrderStatus;
 import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.repository.OrderStatusTransitionRepository;
+import me.remontada.nwp_backend.util.OrderCursor;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,8 +16,9 @@ import java.util.List;
 public interface OrderService {
 
 
-    List<Order> searchOrders(User user, List<OrderStatus> statuses,
-                             LocalDateTime dateFrom, LocalDateTime dateTo, Long userId);
+    Slice<OrderResponseDTO> searchOrders(User user, List<OrderStatus> statuses,
+                                         LocalDateTime dateFrom, LocalDateTime dateTo, Long userId,
+                                         OrderCursor after, Integer size);
 
 
     Order placeOrder(User user, List<OrderItemRequest> dishIds);
@@ -28,15 +33,34 @@ public interface OrderService {
     Order trackOrder(Long orderId, User user);
 
 
-    boolean canCreateNewOrder();
+    List<Long> activateScheduledOrders(List<Long> orderIds);
 
 
-    void processScheduledOrders();
+    boolean promoteWaitingOrder(Long orderId);
 
 
-    void advanceOrderStatus(Long orderId);
+    void applyStatusTransition(Long transitionId);
 
-    void processStatusTransitions();
+
+    List<OrderStatusTransitionRepository.TransitionRef> findDueTransitions(Long afterId, int limit);
+
+
+    int applyStatusTransitions(List<Long> transitionIds);
+
+
+    List<OrderStatusTransitionRepository.TransitionRef> claimDueTransitions(int limit);
+
+
+    List<Long> claimTransitions(List<Long> transitionIds);
+
+
+    void releaseTransitionClaims(List<Long> transitionIds);
+
+
+    int deleteProcessedTransitions(LocalDateTime olderThan, int limit);
+
+
+    int backfillOrderTotals(int limit);
 
 
 
@@ -1,22 +1,40 @@
 package me.remontada.nwp_backend.service;
 
+import me.remontada.nwp_backend.datasource.ReadYourWritesTracker;
 import me.remontada.nwp_backend.dto.OrderItemRequest;
+import me.remontada.nwp_backend.dto.projection.OrderItemRow;
+import me.remontada.nwp_backend.dto.projection.OrderRow;
+import me.remontada.nwp_backend.dto.response.OrderResponseDTO;
+import me.remontada.nwp_backend.mapper.OrderMapper;
 import me.remontada.nwp_backend.repository.OrderStatusTransitionRepository;
 import lombok.extern.slf4j.Slf4j;
 import me.remontada.nwp_backend.model.*;
 import me.remontada.nwp_backend.repository.DishRepository;
 import me.remontada.nwp_backend.repository.ErrorMessageRepository;
 import me.remontada.nwp_backend.repository.OrderRepository;
+import me.remontada.nwp_backend.repository.OrderSearchRepository;
+import me.remontada.nwp_backend.util.OrderCursor;
 import me.remontada.nwp_backend.util.PermissionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Slf4j
@@ -24,9 +42,12 @@ import java.util.Optional;
 @Transactional
 public class OrderServiceImpl implements OrderService {
 
-    private static final int MAX_SIMULTANEOUS_ORDERS = 3;
-    private static final List<OrderStatus> ACTIVE_STATUSES = Arrays.asList(
-            OrderStatus.PREPARING, OrderStatus.IN_DELIVERY
+    private static final List<OrderStatus> CANCELLABLE_STATUSES = Arrays.asList(
+            OrderStatus.ORDERED, OrderStatus.WAITING
+    );
+
+    private static final List<OrderStatus> TRANSITION_STATUSES = Arrays.asList(
+            OrderStatus.PREPARING, OrderStatus.IN_DELIVERY, OrderStatus.DELIVERED
     );
 
     @Autowired
@@ -44,40 +65,88 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private ErrorMessageService errorMessageService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWrites;
+
+    @Value("${orders.node-id:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String nodeId;
+
+    @Value("${orders.transitions.claim-lease:30s}")
+    private Duration claimLease;
+
+    @Value("${orders.search.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${orders.search.max-page-size:200}")
+    private int maxPageSize;
+
+    // rows are read into flat records instead of managed entities
+    @Value("${orders.search.projection-enabled:true}")
+    private boolean projectionEnabled;
+
     @Override
-    public List<Order> searchOrders(User user, List<OrderStatus> statuses,
-                                    LocalDateTime dateFrom, LocalDateTime dateTo, Long userId) {
+    @Transactional(readOnly = true)
+    public Slice<OrderResponseDTO> searchOrders(User user, List<OrderStatus> statuses,
+                                                LocalDateTime dateFrom, LocalDateTime dateTo, Long userId,
+                                                OrderCursor after, Integer size) {
 
 
         boolean isAdmin = PermissionUtils.isAdmin(user);
 
-        if (isAdmin) {
-            return orderRepository.searchAllOrders(userId, statuses, dateFrom, dateTo);
-        } else {
-            return orderRepository.searchUserOrders(user.getId(), statuses, dateFrom, dateTo);
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        OrderSearchRepository.Filter filter = new OrderSearchRepository.Filter(
+                isAdmin ? userId : user.getId(), statuses, dateFrom, dateTo);
+
+        if (projectionEnabled) {
+            Slice<OrderRow> rows = orderRepository.searchOrderRows(filter, after, pageSize);
+
+            Map<Long, List<OrderItemRow>> itemsByOrder = findItemRows(rows.getContent());
+            return rows.map(row -> orderMapper.toResponseDTO(row, itemsByOrder.getOrDefault(row.id(), List.of())));
         }
+
+        Slice<Order> orders = orderRepository.searchOrders(filter, after, pageSize);
+
+        fetchOrderGraph(orders.getContent());
+        return orders.map(orderMapper::toResponseDTO);
     }
 
     @Override
     public Order placeOrder(User user, List<OrderItemRequest> orderItems) {
 
-        if (!canCreateNewOrder()) {
-            String errorMsg = "Maximum number of simultaneous orders (3) exceeded";
-
-
-            throw new RuntimeException(errorMsg);
-        }
+        boolean admitted = admissionController.tryAcquireForNewOrder();
 
         Order order = new Order();
         order.setCreatedBy(user);
-        order.setStatus(OrderStatus.ORDERED);
-        order.setActive(true);
+        order.setStatus(admitted ? OrderStatus.ORDERED : OrderStatus.WAITING);
+        order.setActive(admitted);
         order.setCreatedAt(LocalDateTime.now());
 
         List<OrderItem> items = createOrderItems(order, orderItems);
         order.setItems(items);
+        order.updateTotals();
 
         Order savedOrder = orderRepository.save(order);
+        readYourWrites.markWrite(user.getId());
+
+        if (!admitted) {
+            // kitchen is full: wait in the admission queue, unless that is full as well
+            if (!admissionController.tryReserveWaiting(savedOrder.getId())) {
+                String errorMsg = "Maximum number of simultaneous orders (3) exceeded and the waiting queue is full";
+
+
+                throw new RuntimeException(errorMsg);
+            }
+            return savedOrder;
+        }
 
 
         scheduleStatusTransition(savedOrder.getId(), OrderStatus.PREPARING, 10);
@@ -101,16 +170,18 @@ public class OrderServiceImpl implements OrderService {
 
         List<OrderItem> items = createOrderItems(order, orderItems);
         order.setItems(items);
+        order.updateTotals();
 
         Order savedOrder = orderRepository.save(order);
-
+        readYourWrites.markWrite(user.getId());
+        eventPublisher.publishEvent(new OrderScheduledEvent(savedOrder.getId(), scheduledFor));
 
         return savedOrder;
     }
 
     @Override
     public Order cancelOrder(Long orderId, User user) {
-        Order order = orderRepository.findCancellableOrder(orderId, OrderStatus.ORDERED);
+        Order order = orderRepository.findCancellableOrder(orderId, CANCELLABLE_STATUSES);
         if (order == null) {
             throw new RuntimeException("Order not found or cannot be canceled");
         }
@@ -122,12 +193,20 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("You can only cancel your own orders");
         }
 
+        // waiting orders and scheduled orders that were never activated do not hold an admission slot
+        if (order.getStatus() == OrderStatus.WAITING) {
+            admissionController.removeWaitingAfterCommit(order.getId());
+        } else if (Boolean.TRUE.equals(order.getActive())) {
+            admissionController.releaseAfterCommit(1);
+        }
+
         order.setStatus(OrderStatus.CANCELED);
         order.setActive(false);
 
 
         Order savedOrder = orderRepository.save(order);
         transitionRepository.deleteByOrderId(savedOrder.getId());
+        readYourWrites.markWrite(user.getId());
 
 
 
@@ -140,7 +219,7 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public Order trackOrder(Long orderId, User user) {
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
+        Optional<Order> orderOpt = orderRepository.findWithItemsById(orderId);
         if (orderOpt.isEmpty()) {
             throw new RuntimeException("Order not found");
         }
@@ -158,105 +237,194 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    public boolean canCreateNewOrder() {
-        long activeOrdersCount = orderRepository.countByStatusInAndActiveTrue(ACTIVE_STATUSES);
-        return activeOrdersCount < MAX_SIMULTANEOUS_ORDERS;
+    public List<Long> activateScheduledOrders(List<Long> orderIds) {
+        List<Long> failedOrderIds = new ArrayList<>();
+
+        for (Order order : orderRepository.findAllById(orderIds)) {
+            // already activated or canceled
+            if (order.getStatus() != OrderStatus.ORDERED || order.getScheduledFor() == null) {
+                continue;
+            }
+
+            if (!activateScheduledOrder(order)) {
+                failedOrderIds.add(order.getId());
+            }
+        }
+
+        return failedOrderIds;
     }
 
     @Override
-    public void processScheduledOrders() {
+    public boolean promoteWaitingOrder(Long orderId) {
+        if (!admissionController.tryAcquire()) {
+            return false;
+        }
+
+        // canceled or promoted elsewhere: hand the slot back and drop it from the queue
+        if (orderRepository.activateIfStatus(orderId, OrderStatus.WAITING, OrderStatus.ORDERED) == 0) {
+            admissionController.releaseAfterCommit(1);
+            return true;
+        }
 
-        List<Order> scheduledOrders = orderRepository.findScheduledOrdersReadyForProcessing(
-                LocalDateTime.now(), OrderStatus.ORDERED);
+        scheduleStatusTransition(orderId, OrderStatus.PREPARING, 10);
+        return true;
+    }
 
-        for (Order order : scheduledOrders) {
-            try {
-                if (canCreateNewOrder()) {
-                    order.setActive(true);
-                    order.setScheduledFor(null);
-                    orderRepository.save(order);
+    @Override
+    public void applyStatusTransition(Long transitionId) {
+        Optional<OrderStatusTransition> transitionOpt = transitionRepository.findById(transitionId);
+        if (transitionOpt.isEmpty() || transitionOpt.get().getProcessed()) {
+            return;
+        }
 
+        applyTransition(transitionOpt.get());
+    }
 
-                    scheduleStatusTransition(order.getId(), OrderStatus.PREPARING, 10);
-                } else {
-                    String errorMsg = "Maximum number of simultaneous orders (3) exceeded";
-                    throw new RuntimeException(errorMsg);
+    // read-write, so the sweep reads the primary: a lagging replica would hide due rows
+    @Override
+    public List<OrderStatusTransitionRepository.TransitionRef> findDueTransitions(Long afterId, int limit) {
+        return transitionRepository.findPendingTransitionRefs(LocalDateTime.now(), afterId, PageRequest.of(0, limit));
+    }
 
-                }
-            } catch (Exception e) {
+    @Override
+    public int applyStatusTransitions(List<Long> transitionIds) {
+        if (transitionIds.isEmpty()) {
+            return 0;
+        }
 
-                ErrorMessage error = ErrorMessage.forScheduledOrderFailure(
-                        order.getId(), order.getCreatedBy(), e.getMessage());
-                errorMessageRepository.save(error);
+        // orders and follow-ups only pick up rows that are still unprocessed, so they run before marking
+        for (OrderStatus status : TRANSITION_STATUSES) {
+            int updated = orderRepository.updateStatusForTransitions(transitionIds, status);
+            if (status == OrderStatus.DELIVERED) {
+                admissionController.releaseAfterCommit(updated);
+            }
+
+            OrderStatus nextStatus = getNextStatus(status);
+            if (nextStatus != null) {
+                LocalDateTime scheduledTime = LocalDateTime.now().plusSeconds(getDelayForStatus(nextStatus));
+                List<OrderStatusTransition> followUps = transitionRepository
+                        .findUnprocessedOrderIds(transitionIds, status).stream()
+                        .map(orderId -> new OrderStatusTransition(orderId, nextStatus, scheduledTime))
+                        .toList();
+
+                // sequence ids + hibernate.jdbc.batch_size turn this into one batched insert
+                transitionRepository.saveAll(followUps).forEach(followUp -> eventPublisher.publishEvent(
+                        new StatusTransitionScheduledEvent(followUp.getId(), followUp.getOrderId(), scheduledTime)));
             }
         }
+
+        return transitionRepository.markProcessed(transitionIds);
     }
 
     @Override
-    public void processStatusTransitions() {
-        List<OrderStatusTransition> pendingTransitions =
-                transitionRepository.findPendingTransitions(LocalDateTime.now());
-
-        for (OrderStatusTransition transition : pendingTransitions) {
-            try {
-                Optional<Order> orderOpt = orderRepository.findById(transition.getOrderId());
-                if (orderOpt.isPresent()) {
-                    Order order = orderOpt.get();
-                    order.setStatus(transition.getTargetStatus());
-                    orderRepository.save(order);
-
-                    transition.setProcessed(true);
-                    transitionRepository.save(transition);
-
-
-                    OrderStatus nextStatus = getNextStatus(transition.getTargetStatus());
-                    if (nextStatus != null) {
-                        int delay = getDelayForStatus(nextStatus);
-                        scheduleStatusTransition(order.getId(), nextStatus, delay);
-                    }
-                }
-            } catch (Exception e) {
-            }
+    public List<OrderStatusTransitionRepository.TransitionRef> claimDueTransitions(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        return transitionRepository.claimDueTransitions(nodeId, now, now.plus(claimLease), limit);
+    }
+
+    @Override
+    public List<Long> claimTransitions(List<Long> transitionIds) {
+        if (transitionIds.isEmpty()) {
+            return List.of();
         }
+
+        LocalDateTime now = LocalDateTime.now();
+        return transitionRepository.claimTransitions(transitionIds, nodeId, now, now.plus(claimLease)).stream()
+                .map(OrderStatusTransitionRepository.TransitionRef::getId)
+                .toList();
     }
 
     @Override
-    public void advanceOrderStatus(Long orderId) {
-        try {
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                return;
+    public void releaseTransitionClaims(List<Long> transitionIds) {
+        if (!transitionIds.isEmpty()) {
+            transitionRepository.releaseClaims(transitionIds, nodeId);
+        }
+    }
+
+    @Override
+    public int deleteProcessedTransitions(LocalDateTime olderThan, int limit) {
+        return transitionRepository.deleteProcessedBefore(olderThan, limit);
+    }
+
+    @Override
+    public int backfillOrderTotals(int limit) {
+        return orderRepository.backfillTotals(limit);
+    }
+
+    private List<OrderItem> createOrderItems(Order order, List<OrderItemRequest> orderItemDtos) {
+        Set<Long> dishIds = orderItemDtos.stream()
+                .map(OrderItemRequest::getDishId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // one query for all lines instead of one per line
+        Map<Long, Dish> dishes = dishRepository.findAllById(dishIds).stream()
+                .collect(Collectors.toMap(Dish::getId, Function.identity()));
+
+        List<String> errors = new ArrayList<>();
+        for (Long dishId : dishIds) {
+            Dish dish = dishes.get(dishId);
+            if (dish == null) {
+                errors.add("Dish not found: " + dishId);
+            } else if (!dish.isAvailable()) {
+                errors.add("Dish is not available: " + dish.getName());
             }
+        }
 
-            Order order = orderOpt.get();
-            OrderStatus nextStatus = getNextStatus(order.getStatus());
+        if (!errors.isEmpty()) {
+            throw new RuntimeException(String.join("; ", errors));
+        }
+
+        return orderItemDtos.stream()
+                .map(dto -> new OrderItem(order, dishes.get(dto.getDishId()), dto.getQuantity()))
+                .toList();
+    }
 
-            if (nextStatus != null && nextStatus != OrderStatus.CANCELED) {
-                order.setStatus(nextStatus);
+
+    private boolean activateScheduledOrder(Order order) {
+        try {
+            if (admissionController.tryAcquire()) {
+                order.setActive(true);
+                order.setScheduledFor(null);
                 orderRepository.save(order);
 
-                int delay = getDelayForStatus(nextStatus);
 
-                if (delay > 0) {
-                    scheduleStatusTransition(orderId, getNextStatus(nextStatus), delay);
-                }
+                scheduleStatusTransition(order.getId(), OrderStatus.PREPARING, 10);
+                return true;
+            } else {
+                String errorMsg = "Maximum number of simultaneous orders (3) exceeded";
+                throw new RuntimeException(errorMsg);
+
             }
         } catch (Exception e) {
-            log.error("Error advancing status for order {}: {}", orderId, e.getMessage());
+
+            ErrorMessage error = ErrorMessage.forScheduledOrderFailure(
+                    order.getId(), order.getCreatedBy(), e.getMessage());
+            errorMessageRepository.save(error);
+            return false;
         }
     }
 
-    private List<OrderItem> createOrderItems(Order order, List<OrderItemRequest> orderItemDtos) {
-        return orderItemDtos.stream().map(dto -> {
-            Dish dish = dishRepository.findById(dto.getDishId())
-                    .orElseThrow(() -> new RuntimeException("Dish not found: " + dto.getDishId()));
 
-            if (!dish.isAvailable()) {
-                throw new RuntimeException("Dish is not available: " + dish.getName());
+    private void applyTransition(OrderStatusTransition transition) {
+        Optional<Order> orderOpt = orderRepository.findById(transition.getOrderId());
+        if (orderOpt.isPresent()) {
+            Order order = orderOpt.get();
+            order.setStatus(transition.getTargetStatus());
+            orderRepository.save(order);
+            if (transition.getTargetStatus() == OrderStatus.DELIVERED) {
+                admissionController.releaseAfterCommit(1);
             }
 
-            return new OrderItem(order, dish, dto.getQuantity());
-        }).toList();
+            transition.setProcessed(true);
+            transitionRepository.save(transition);
+
+
+            OrderStatus nextStatus = getNextStatus(transition.getTargetStatus());
+            if (nextStatus != null) {
+                int delay = getDelayForStatus(nextStatus);
+                scheduleStatusTransition(order.getId(), nextStatus, delay);
+            }
+        }
     }
 
 
@@ -285,10 +453,36 @@ public class OrderServiceImpl implements OrderService {
         LocalDateTime scheduledTime = LocalDateTime.now().plusSeconds(delaySeconds);
         OrderStatusTransition transition = new OrderStatusTransition(orderId, targetStatus, scheduledTime);
         transitionRepository.save(transition);
+
+        // registered with the timing wheel once the surrounding transaction commits
+        eventPublisher.publishEvent(new StatusTransitionScheduledEvent(transition.getId(), orderId, scheduledTime));
         log.info("Scheduled status transition for order {} to {} at {}", orderId, targetStatus, scheduledTime);
     }
 
 
+    private Map<Long, List<OrderItemRow>> findItemRows(List<OrderRow> rows) {
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> orderIds = rows.stream().map(OrderRow::id).toList();
+        return orderRepository.findItemRows(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderItemRow::orderId));
+    }
+
+
+    // two extra statements per page instead of a select per creator, order and dish
+    private void fetchOrderGraph(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        orderRepository.fetchCreators(orderIds);
+        orderRepository.fetchItemsWithDishes(orderIds);
+    }
+
+
 
 
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package me.remontada.nwp_backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of single-threaded lanes. Tasks with the same key always land on the same
+ * lane and run in submission order; different keys spread over the lanes and run in
+ * parallel.
+ */
+@Slf4j
+public class PartitionedExecutor {
+
+    private final Lane[] lanes;
+
+
+    public PartitionedExecutor(String name, int laneCount, MeterRegistry meterRegistry) {
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(name, i, meterRegistry);
+        }
+    }
+
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+
+    public int laneFor(long key) {
+        // spread sequential ids before reducing them to a lane index
+        return Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), lanes.length);
+    }
+
+
+    public void execute(long key, Runnable task) {
+        executeOnLane(laneFor(key), task);
+    }
+
+
+    public void executeOnLane(int lane, Runnable task) {
+        lanes[lane].execute(task);
+    }
+
+
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+    }
+
+
+    private static final class Lane {
+        private final ExecutorService executor;
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Timer lag;
+
+        private Lane(String name, int index, MeterRegistry meterRegistry) {
+            String threadName = name + "-" + index;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            Gauge.builder(name + ".lane.depth", depth, AtomicInteger::get)
+                    .tag("lane", String.valueOf(index))
+                    .description("Tasks waiting on the lane")
+                    .register(meterRegistry);
+            this.lag = Timer.builder(name + ".lane.lag")
+                    .tag("lane", String.valueOf(index))
+                    .description("Time a task waited on the lane before it started")
+                    .register(meterRegistry);
+        }
+
+        private void execute(Runnable task) {
+            long enqueuedAt = System.nanoTime();
+            depth.incrementAndGet();
+
+            executor.execute(() -> {
+                depth.decrementAndGet();
+                lag.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Lane task failed: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
+}
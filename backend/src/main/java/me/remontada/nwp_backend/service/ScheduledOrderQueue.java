@@ -0,0 +1,149 @@
+package me.remontada.nwp_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.datasource.PrimaryReads;
+import me.remontada.nwp_backend.model.OrderStatus;
+import me.remontada.nwp_backend.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory delay queue of scheduled orders, ordered by scheduledFor. Only orders due
+ * within the loaded window are kept in memory; the window is extended from the DB as
+ * time moves on, so memory stays bounded no matter how far ahead orders are scheduled.
+ *
+ * The same order can end up in the queue twice (e.g. scheduled while a window is being
+ * loaded), so activation has to be idempotent.
+ */
+@Slf4j
+@Component
+public class ScheduledOrderQueue {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // a lagging replica would miss orders committed just before the window moved
+    @Autowired
+    private PrimaryReads primaryReads;
+
+    @Value("${orders.scheduled.window:1h}")
+    private Duration window;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparing(Entry::dueAt));
+
+    private LocalDateTime loadedUntil;
+
+
+    /**
+     * Loads every pending scheduled order up to the end of the first window, including
+     * the ones that became due while the application was down.
+     */
+    public void loadInitialWindow() {
+        LocalDateTime to = LocalDateTime.now().plus(window);
+
+        synchronized (this) {
+            loadedUntil = to;
+        }
+
+        List<OrderRepository.ScheduledOrderRef> orders =
+                primaryReads.read(() -> orderRepository.findScheduledOrdersUntil(to, OrderStatus.ORDERED));
+        orders.forEach(order -> add(order.getId(), order.getScheduledFor()));
+
+        log.info("Loaded {} scheduled orders due before {}", orders.size(), to);
+    }
+
+
+    /**
+     * Loads the next window once less than half of the current one is left.
+     */
+    public void extendWindow() {
+        LocalDateTime from;
+        LocalDateTime to = LocalDateTime.now().plus(window);
+
+        synchronized (this) {
+            if (loadedUntil == null || loadedUntil.isAfter(to.minus(window.dividedBy(2)))) {
+                return;
+            }
+
+            // moved before the query so orders committed meanwhile are picked up by add()
+            from = loadedUntil;
+            loadedUntil = to;
+        }
+
+        List<OrderRepository.ScheduledOrderRef> orders =
+                primaryReads.read(() -> orderRepository.findScheduledOrdersBetween(from, to, OrderStatus.ORDERED));
+        orders.forEach(order -> add(order.getId(), order.getScheduledFor()));
+
+        log.info("Loaded {} scheduled orders due between {} and {}", orders.size(), from, to);
+    }
+
+
+    /**
+     * Queues an order if it falls into the loaded window; later orders are picked up when
+     * their window is loaded.
+     */
+    public synchronized void offer(Long orderId, LocalDateTime scheduledFor) {
+        if (loadedUntil != null && !scheduledFor.isAfter(loadedUntil)) {
+            queue.add(new Entry(orderId, scheduledFor));
+        }
+    }
+
+
+    public synchronized void add(Long orderId, LocalDateTime dueAt) {
+        queue.add(new Entry(orderId, dueAt));
+    }
+
+
+    /**
+     * Queues overdue scheduled orders from the DB that are not queued yet; returns how
+     * many were missing.
+     */
+    public int addMissingOverdue(LocalDateTime now) {
+        List<OrderRepository.ScheduledOrderRef> overdue =
+                primaryReads.read(() -> orderRepository.findScheduledOrdersUntil(now, OrderStatus.ORDERED));
+        if (overdue.isEmpty()) {
+            return 0;
+        }
+
+        synchronized (this) {
+            Set<Long> queued = queue.stream().map(Entry::orderId).collect(Collectors.toSet());
+
+            int added = 0;
+            for (OrderRepository.ScheduledOrderRef order : overdue) {
+                if (!queued.contains(order.getId())) {
+                    queue.add(new Entry(order.getId(), order.getScheduledFor()));
+                    added++;
+                }
+            }
+            return added;
+        }
+    }
+
+
+    public synchronized List<Long> pollDue(LocalDateTime now) {
+        List<Long> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().dueAt().isAfter(now)) {
+            due.add(queue.poll().orderId());
+        }
+        return due;
+    }
+
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+
+    private record Entry(Long orderId, LocalDateTime dueAt) {
+    }
+}
@@ -0,0 +1,167 @@
+package me.remontada.nwp_backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.repository.OrderStatusTransitionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs status transitions off the timing wheel thread. Transitions are hashed by order id
+ * onto worker lanes (one per core by default), so transitions of one order are applied
+ * strictly in order while different orders advance in parallel.
+ *
+ * In batch mode due transitions are collected per lane and applied with a few set-based
+ * statements per batch instead of one round trip chain per row.
+ *
+ * In claim mode every batch is first claimed with a lease (FOR UPDATE SKIP LOCKED),
+ * so several instances can share the table without applying a transition twice.
+ */
+@Slf4j
+@Component
+public class StatusTransitionDispatcher {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${orders.transitions.lanes:0}")
+    private int laneCount;
+
+    @Value("${orders.transitions.batch-enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${orders.transitions.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orders.transitions.claim-enabled:false}")
+    private boolean claimEnabled;
+
+    private PartitionedExecutor lanes;
+    private Queue<Long>[] dueTransitionIds;
+    private AtomicBoolean[] drainScheduled;
+
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        lanes = new PartitionedExecutor("orders.transitions", count, meterRegistry);
+
+        dueTransitionIds = new Queue[count];
+        drainScheduled = new AtomicBoolean[count];
+        for (int i = 0; i < count; i++) {
+            dueTransitionIds[i] = new ConcurrentLinkedQueue<>();
+            drainScheduled[i] = new AtomicBoolean();
+        }
+
+        log.info("Status transitions run on {} lanes", count);
+    }
+
+
+    public void dispatch(Long transitionId, Long orderId) {
+        if (!batchEnabled && !claimEnabled) {
+            lanes.execute(orderId, () -> orderService.applyStatusTransition(transitionId));
+            return;
+        }
+
+        int lane = lanes.laneFor(orderId);
+        dueTransitionIds[lane].add(transitionId);
+        if (drainScheduled[lane].compareAndSet(false, true)) {
+            lanes.executeOnLane(lane, () -> drainDueTransitions(lane));
+        }
+    }
+
+
+    /**
+     * Routes every due row in the table to its lane. In claim mode only rows this node
+     * managed to claim are routed.
+     */
+    public void sweep() {
+        List<OrderStatusTransitionRepository.TransitionRef> batch;
+        Long afterId = 0L;
+
+        do {
+            batch = claimEnabled
+                    ? orderService.claimDueTransitions(batchSize)
+                    : orderService.findDueTransitions(afterId, batchSize);
+
+            for (OrderStatusTransitionRepository.TransitionRef ref : batch) {
+                dispatch(ref.getId(), ref.getOrderId());
+                afterId = Math.max(afterId, ref.getId());
+            }
+        } while (batch.size() == batchSize);
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.shutdown();
+    }
+
+
+    private void drainDueTransitions(int lane) {
+        drainScheduled[lane].set(false);
+
+        List<Long> batch = new ArrayList<>(batchSize);
+        Long transitionId;
+        while ((transitionId = dueTransitionIds[lane].poll()) != null) {
+            batch.add(transitionId);
+            if (batch.size() == batchSize) {
+                claimAndApply(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            claimAndApply(batch);
+        }
+    }
+
+
+    private void claimAndApply(List<Long> transitionIds) {
+        apply(claimEnabled ? orderService.claimTransitions(transitionIds) : transitionIds);
+    }
+
+
+    private void apply(List<Long> transitionIds) {
+        if (transitionIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (batchEnabled) {
+                applyBatch(transitionIds);
+            } else {
+                transitionIds.forEach(orderService::applyStatusTransition);
+            }
+        } catch (RuntimeException e) {
+            // hand the rows back right away instead of waiting for the lease to run out
+            if (claimEnabled) {
+                orderService.releaseTransitionClaims(transitionIds);
+            }
+            throw e;
+        }
+    }
+
+
+    private void applyBatch(List<Long> transitionIds) {
+        long start = System.nanoTime();
+        int applied = orderService.applyStatusTransitions(transitionIds);
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+
+        log.info("Applied {} status transitions in {} ms ({} rows/sec)",
+                applied, elapsedNanos / 1_000_000, applied * 1_000_000_000L / elapsedNanos);
+    }
+}
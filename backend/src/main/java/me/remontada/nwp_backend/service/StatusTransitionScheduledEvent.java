@@ -0,0 +1,18 @@
+package me.remontada.nwp_backend.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+
+@Getter
+@AllArgsConstructor
+public class StatusTransitionScheduledEvent {
+
+    private final Long transitionId;
+
+    private final Long orderId;
+
+    private final LocalDateTime scheduledFor;
+}
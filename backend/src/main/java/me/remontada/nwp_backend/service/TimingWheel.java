@@ -0,0 +1,197 @@
+package me.remontada.nwp_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel. Deadlines are hashed into a fixed ring of buckets and a single
+ * worker thread advances one bucket per tick, so a tick only looks at the timeouts that
+ * landed in that bucket instead of everything that is scheduled. While nothing is
+ * scheduled the worker parks until the next schedule call instead of ticking.
+ *
+ * Tasks run on the wheel thread and must only hand work off (e.g. to an executor).
+ */
+@Slf4j
+@Component
+public class TimingWheel {
+
+    private final long tickNanos;
+    private final int mask;
+    private final ArrayDeque<Timeout>[] buckets;
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile boolean running;
+    private volatile Thread workerThread;
+    private long startNanos;
+    private long tick;
+
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(@Value("${orders.transitions.wheel.tick-ms:10}") long tickMillis,
+                       @Value("${orders.transitions.wheel.size:4096}") int wheelSize) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than 0");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        startNanos = System.nanoTime();
+        workerThread = new Thread(this::run, "timing-wheel");
+        workerThread.setDaemon(true);
+        workerThread.start();
+    }
+
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (workerThread != null) {
+            LockSupport.unpark(workerThread);
+            workerThread = null;
+        }
+    }
+
+
+    public void schedule(LocalDateTime at, Runnable task) {
+        schedule(at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), task);
+    }
+
+
+    public void schedule(long deadlineEpochMillis, Runnable task) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(deadlineEpochMillis - System.currentTimeMillis());
+        long deadline = System.nanoTime() - startNanos + Math.max(delayNanos, 0);
+
+        pendingTimeouts.add(new Timeout(deadline, task));
+        size.incrementAndGet();
+
+        Thread worker = workerThread;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+
+    public int size() {
+        return size.get();
+    }
+
+
+    private void run() {
+        while (running) {
+            if (size.get() == 0) {
+                waitForTimeouts();
+                continue;
+            }
+
+            long deadline = waitForNextTick();
+            if (!running) {
+                break;
+            }
+
+            transferPendingTimeouts();
+            expireTimeouts(buckets[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+
+        while (running) {
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                break;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+
+        return deadline;
+    }
+
+
+    private void waitForTimeouts() {
+        // schedule() unparks after adding, so a timeout added after the check is not missed
+        LockSupport.park(this);
+
+        // the wheel was empty, so the ticks slept through can be skipped instead of replayed
+        tick = Math.max(tick, (System.nanoTime() - startNanos) / tickNanos);
+    }
+
+
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / buckets.length;
+
+            // overdue timeouts go into the current bucket so they fire on this tick
+            long ticks = Math.max(calculated, tick);
+            buckets[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+
+    private void expireTimeouts(ArrayDeque<Timeout> bucket, long deadline) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+
+            if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                iterator.remove();
+                size.decrementAndGet();
+                try {
+                    timeout.task.run();
+                } catch (Exception e) {
+                    log.error("Timing wheel task failed: {}", e.getMessage(), e);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+
+    private static final class Timeout {
+        private final long deadline;
+        private final Runnable task;
+        private long remainingRounds;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package me.remontada.nwp_backend.service;
 
+import me.remontada.nwp_backend.model.Permission;
 import me.remontada.nwp_backend.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import me.remontada.nwp_backend.repository.UserRepository;
+import me.remontada.nwp_backend.util.SingleFlight;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class UserServiceImplementation implements UserService {
@@ -14,6 +19,9 @@ public class UserServiceImplementation implements UserService {
 
    private final UserRepository userRepository;
 
+    // every authenticated request looks its user up by email
+    private final SingleFlight<String, Optional<User>> usersByEmail = new SingleFlight<>();
+
 
     @Autowired
     public UserServiceImplementation(UserRepository userRepository) {
@@ -22,7 +30,12 @@ public class UserServiceImplementation implements UserService {
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        // inside a transaction the caller may change the user, so it gets its own instance
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return userRepository.findByEmail(email);
+        }
+        // coalesced callers share the loaded user, each gets its own copy to use as principal
+        return usersByEmail.load(email, () -> userRepository.findByEmail(email)).map(UserServiceImplementation::copy);
     }
 
     @Override
@@ -49,4 +62,11 @@ public class UserServiceImplementation implements UserService {
     public boolean existsByEmail(String email) { return userRepository.existsByEmail(email); }
 
 
+    private static User copy(User user) {
+        Set<Permission> permissions = user.getPermissions() == null ? null : new HashSet<>(user.getPermissions());
+        return new User(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getPassword(), permissions);
+    }
+
+
 }
@@ -0,0 +1,63 @@
+package me.remontada.nwp_backend.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader on its own
+ * thread, every caller that arrives while it runs waits for that result instead of starting
+ * another load. Nothing is cached, the key is free again as soon as the load finishes.
+ *
+ * The loader runs on the caller's thread, so it sees that caller's transaction and security
+ * context. Waiters get the same instance, so it should not be mutated. A loader must not
+ * load its own key again, it would wait for itself.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            V value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            // waiters fail with the same exception, the next caller tries again
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+-- Runs after Hibernate has updated the schema (spring.jpa.defer-datasource-initialization).
+-- Every statement must be idempotent.
+
+-- pending transitions: poll, claim and sweep queries
+CREATE INDEX IF NOT EXISTS idx_order_status_transitions_pending
+    ON order_status_transitions (scheduled_for)
+    WHERE processed = false;
+
+CREATE INDEX IF NOT EXISTS idx_order_status_transitions_order_id
+    ON order_status_transitions (order_id);
+
+-- order search: keyset pages (created_at DESC, id DESC), all orders or one user's
+CREATE INDEX IF NOT EXISTS idx_orders_created_at_id
+    ON orders (created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_orders_created_by_created_at
+    ON orders (created_by, created_at DESC, id DESC);
+
+-- admission count and waiting queue
+CREATE INDEX IF NOT EXISTS idx_orders_status_active
+    ON orders (status, active);
+
+-- scheduled order window
+CREATE INDEX IF NOT EXISTS idx_orders_scheduled_for
+    ON orders (scheduled_for)
+    WHERE scheduled_for IS NOT NULL;
+
+-- lines of a page of orders, export join
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id
+    ON order_items (order_id);
+
+-- Hibernate only writes the enum check constraint when it creates the table,
+-- so it is rebuilt here to follow OrderStatus (keep the lists in sync). Only when
+-- it is missing or lacks a status, so a normal startup does not lock and rescan
+-- orders. The body is single-quoted: the init script splitter does not know $$
+-- and would cut it at its semicolons.
+DO '
+DECLARE
+    statuses text[] := ARRAY[''WAITING'', ''ORDERED'', ''PREPARING'', ''IN_DELIVERY'', ''DELIVERED'', ''CANCELED''];
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_constraint c
+        WHERE c.conrelid = ''orders''::regclass AND c.conname = ''orders_status_check''
+          AND (SELECT bool_and(position(quote_literal(s) IN pg_get_constraintdef(c.oid)) > 0)
+               FROM unnest(statuses) s)
+    ) THEN
+        ALTER TABLE orders DROP CONSTRAINT IF EXISTS orders_status_check;
+        EXECUTE format(''ALTER TABLE orders ADD CONSTRAINT orders_status_check CHECK (status IN (%s))'',
+            (SELECT string_agg(quote_literal(s), '', '') FROM unnest(statuses) s));
+    END IF;
+END';
+
+-- Sequence ids (allocationSize 50, pooled optimizer): Hibernate creates the sequences,
+-- these move them past ids handed out by the old IDENTITY columns. Never moves a
+-- sequence backwards, so it is safe on every startup and with other instances running.
+SELECT setval('orders_seq', GREATEST(
+    (SELECT last_value FROM orders_seq), (SELECT COALESCE(MAX(id), 0) FROM orders)));
+SELECT setval('order_items_seq', GREATEST(
+    (SELECT last_value FROM order_items_seq), (SELECT COALESCE(MAX(id), 0) FROM order_items)));
+SELECT setval('order_status_transitions_seq', GREATEST(
+    (SELECT last_value FROM order_status_transitions_seq), (SELECT COALESCE(MAX(id), 0) FROM order_status_transitions)));
+SELECT setval('error_messages_seq', GREATEST(
+    (SELECT last_value FROM error_messages_seq), (SELECT COALESCE(MAX(id), 0) FROM error_messages)));
@@ -0,0 +1,59 @@
+package me.remontada.nwp_backend;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the SQL Hibernate prepares on the current thread while a block runs, so
+ * statement-count assertions are not thrown off by background jobs. Batched inserts are
+ * prepared once per batch and count once. Enable it with {@link #PROPERTY}.
+ */
+public class StatementCounter implements StatementInspector {
+
+    public static final String PROPERTY =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                    "me.remontada.nwp_backend.StatementCounter";
+
+    private static final ThreadLocal<List<String>> RECORDING = new ThreadLocal<>();
+
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = RECORDING.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+
+    public static List<String> statementsOf(Runnable work) {
+        return record(() -> {
+            work.run();
+            return null;
+        }).statements();
+    }
+
+
+    public static <T> Recorded<T> record(Supplier<T> work) {
+        List<String> statements = new ArrayList<>();
+        RECORDING.set(statements);
+        try {
+            T result = work.get();
+            return new Recorded<>(result, statements);
+        } finally {
+            RECORDING.remove();
+        }
+    }
+
+
+    public record Recorded<T>(T result, List<String> statements) {
+
+        public long count(String fragment) {
+            return statements.stream().filter(sql -> sql.toLowerCase().contains(fragment)).count();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package me.remontada.nwp_backend.controller;
+
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.StatementCounter;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.service.DishService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * A request whose If-None-Match matches the current menu ETag is answered with 304 without
+ * a single SQL statement. MockMvc runs the request on the test thread, so the statement
+ * counter sees everything it does.
+ */
+@SpringBootTest(properties = StatementCounter.PROPERTY)
+@AutoConfigureMockMvc
+class DishConditionalGetTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DishService dishService;
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/v1/dishes", "/api/v1/dishes/menu", "/api/v1/dishes/categories", "/api/v1/dishes/category/Pizza"})
+    void matchingETagIsAnswered304WithoutAQuery(String path) throws Exception {
+        MvcResult first = perform(get(path).with(user("customer@test.com")));
+        assertThat(first.getResponse().getStatus()).isEqualTo(200);
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+
+        StatementCounter.Recorded<MvcResult> revalidated = StatementCounter.record(() -> perform(get(path)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .with(user("customer@test.com"))));
+
+        assertThat(revalidated.result().getResponse().getStatus()).isEqualTo(304);
+        assertThat(revalidated.result().getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(revalidated.statements()).isEmpty();
+    }
+
+
+    @Test
+    void gzipVariantHasItsOwnETag() throws Exception {
+        MvcResult plain = perform(get("/api/v1/dishes").with(user("customer@test.com")));
+        MvcResult gzip = perform(get("/api/v1/dishes")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .with(user("customer@test.com")));
+
+        String gzipETag = gzip.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(gzip.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipETag).isNotEqualTo(plain.getResponse().getHeader(HttpHeaders.ETAG));
+
+        StatementCounter.Recorded<MvcResult> revalidated = StatementCounter.record(() -> perform(get("/api/v1/dishes")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, gzipETag)
+                .with(user("customer@test.com"))));
+
+        assertThat(revalidated.result().getResponse().getStatus()).isEqualTo(304);
+        assertThat(revalidated.statements()).isEmpty();
+    }
+
+
+    @Test
+    void dishWriteChangesTheETag() throws Exception {
+        MvcResult before = perform(get("/api/v1/dishes").with(user("customer@test.com")));
+        String etag = before.getResponse().getHeader(HttpHeaders.ETAG);
+
+        Dish dish = dishService.getAllDishes().get(0);
+        dishService.updateDishAvailability(dish.getId(), !dish.isAvailable());
+        try {
+            MvcResult after = perform(get("/api/v1/dishes")
+                    .header(HttpHeaders.IF_NONE_MATCH, etag)
+                    .with(user("customer@test.com")));
+
+            assertThat(after.getResponse().getStatus()).isEqualTo(200);
+            assertThat(after.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        } finally {
+            dishService.updateDishAvailability(dish.getId(), dish.isAvailable());
+        }
+    }
+
+
+    private MvcResult perform(RequestBuilder request) {
+        try {
+            return mockMvc.perform(request).andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
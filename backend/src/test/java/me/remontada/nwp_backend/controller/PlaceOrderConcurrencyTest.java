@@ -0,0 +1,193 @@
+package me.remontada.nwp_backend.controller;
+
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.repository.DishRepository;
+import me.remontada.nwp_backend.service.AdmissionController;
+import me.remontada.nwp_backend.service.OrderSchedulerService;
+import me.remontada.nwp_backend.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fires a burst of POST /api/v1/orders at once, with reconciles running in between, and
+ * checks that exactly the limit gets admitted, the queue fills up to its depth and the
+ * in-memory counter agrees with the DB afterwards. Also checks that a freed slot goes to
+ * the head of the waiting queue rather than to the next new order.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "orders.rate-limit.enabled=false",
+        "orders.admission.max-queue-depth=20"
+})
+class PlaceOrderConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int REQUESTS = 40;
+    private static final int QUEUE_DEPTH = 20;
+
+    private static final String ADMITTED = AdmissionController.ADMITTED_STATUSES.stream()
+            .map(status -> "'" + status.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private DishRepository dishRepository;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private OrderSchedulerService orderSchedulerService;
+
+
+    @BeforeEach
+    void clearOrders() {
+        jdbcTemplate.update("DELETE FROM order_status_transitions");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        admissionController.reconcile();
+    }
+
+
+    @Test
+    void concurrentPlacementsNeverOvershootTheLimit() throws Exception {
+        HttpEntity<String> request = orderRequest();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(REQUESTS);
+        List<Future<HttpStatusCode>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(clients.submit(() -> {
+                start.await();
+                return restTemplate.exchange("/api/v1/orders", HttpMethod.POST, request, String.class).getStatusCode();
+            }));
+        }
+
+        // reconciles racing with the commits must not lose or double count any of them
+        AtomicBoolean placing = new AtomicBoolean(true);
+        Thread reconciler = new Thread(() -> {
+            while (placing.get()) {
+                admissionController.reconcile();
+            }
+        });
+        reconciler.start();
+
+        start.countDown();
+        int accepted = 0;
+        int rejected = 0;
+        for (Future<HttpStatusCode> response : responses) {
+            HttpStatusCode status = response.get(60, TimeUnit.SECONDS);
+            if (status.isSameCodeAs(HttpStatus.OK)) {
+                accepted++;
+            } else if (status.isSameCodeAs(HttpStatus.BAD_REQUEST)) {
+                rejected++;
+            }
+        }
+
+        placing.set(false);
+        reconciler.join();
+        clients.shutdown();
+
+        int limit = AdmissionController.MAX_SIMULTANEOUS_ORDERS;
+        assertThat(accepted).isEqualTo(limit + QUEUE_DEPTH);
+        assertThat(rejected).isEqualTo(REQUESTS - limit - QUEUE_DEPTH);
+
+        // the ORDERED -> PREPARING transition may already have fired on a slow run
+        assertThat(count("SELECT COUNT(*) FROM orders WHERE status IN (" + ADMITTED + ") AND active = true")).isEqualTo(limit);
+        assertThat(count("SELECT COUNT(*) FROM orders WHERE status = 'WAITING'")).isEqualTo(QUEUE_DEPTH);
+        assertThat(admissionController.admittedCount()).isEqualTo(limit);
+
+        admissionController.reconcile();
+        assertThat(admissionController.admittedCount()).isEqualTo(limit);
+        assertThat(admissionController.queuePosition(firstWaitingOrderId())).isEqualTo(1);
+    }
+
+
+    @Test
+    void freedSlotGoesToTheWaitingOrderNotToANewOne() {
+        HttpEntity<String> request = orderRequest();
+
+        List<Long> admitted = new ArrayList<>();
+        for (int i = 0; i < AdmissionController.MAX_SIMULTANEOUS_ORDERS; i++) {
+            admitted.add(placeOrder(request));
+        }
+        Long waiting = placeOrder(request);
+        assertThat(status(waiting)).isEqualTo("WAITING");
+
+        restTemplate.exchange("/api/v1/orders/" + admitted.get(0) + "/cancel", HttpMethod.PUT,
+                new HttpEntity<>(request.getHeaders()), String.class);
+
+        // a slot is free now, but the waiting order is first in line for it
+        Long late = placeOrder(request);
+        assertThat(status(late)).isEqualTo("WAITING");
+
+        // the scheduled promotion may already have run, this makes sure it did
+        orderSchedulerService.promoteWaitingOrders();
+        assertThat(status(waiting)).isIn(AdmissionController.ADMITTED_STATUSES.stream().map(Enum::name).toList());
+        assertThat(status(late)).isEqualTo("WAITING");
+        assertThat(admissionController.queuePosition(late)).isEqualTo(1);
+    }
+
+
+    private HttpEntity<String> orderRequest() {
+        Long dishId = dishRepository.findByAvailableTrueOrderByCategory().get(0).getId();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtUtil.generateToken("customer@test.com"));
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>("{\"items\":[{\"dishId\":" + dishId + ",\"quantity\":1}]}", headers);
+    }
+
+
+    private Long placeOrder(HttpEntity<String> request) {
+        ResponseEntity<Map> response = restTemplate.exchange("/api/v1/orders", HttpMethod.POST, request, Map.class);
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        return ((Number) response.getBody().get("id")).longValue();
+    }
+
+
+    private String status(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+    }
+
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+
+    private Long firstWaitingOrderId() {
+        return jdbcTemplate.queryForObject(
+                "SELECT id FROM orders WHERE status = 'WAITING' ORDER BY created_at, id LIMIT 1", Long.class);
+    }
+}
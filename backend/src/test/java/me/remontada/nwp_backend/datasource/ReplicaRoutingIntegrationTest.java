@@ -0,0 +1,140 @@
+package me.remontada.nwp_backend.datasource;
+
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against two databases: the shared primary and a separate, empty "replica". Reading
+ * current_database() shows where a connection went. The replica has no schema, so the
+ * context only starts if none of the startup jobs (seeding, menu cache, admission
+ * reconcile, scheduled order window) read from it.
+ */
+@SpringBootTest(properties = "datasource.replica.health-check-interval-ms=600000")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingIntegrationTest extends PostgresIntegrationTest {
+
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("nwp_replica");
+
+    static {
+        REPLICA.start();
+    }
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWrites;
+
+    @Autowired
+    private PrimaryReads primaryReads;
+
+    @Autowired
+    private UserRepository userRepository;
+
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("datasource.replica.url", REPLICA::getJdbcUrl);
+        registry.add("datasource.replica.username", REPLICA::getUsername);
+        registry.add("datasource.replica.password", REPLICA::getPassword);
+    }
+
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(currentDatabase(true)).isEqualTo(REPLICA.getDatabaseName());
+        assertThat(currentDatabase(false)).isEqualTo(POSTGRES.getDatabaseName());
+    }
+
+
+    @Test
+    @Order(2)
+    void primaryReadsUseThePrimary() {
+        assertThat(primaryReads.read(() -> jdbcTemplate.queryForObject("SELECT current_database()", String.class)))
+                .isEqualTo(POSTGRES.getDatabaseName());
+
+        // the replica has no users table, so this only works on the primary
+        assertThat(primaryReads.read(userRepository::count)).isPositive();
+    }
+
+
+    @Test
+    @Order(3)
+    void usersInTheirReadYourWritesWindowReadThePrimary() {
+        User customer = primaryReads.read(() -> userRepository.findByEmail("customer@test.com")).orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(customer, null, List.of()));
+
+        assertThat(currentDatabase(true)).isEqualTo(REPLICA.getDatabaseName());
+
+        readYourWrites.markWrite(customer.getId());
+        assertThat(currentDatabase(true)).isEqualTo(POSTGRES.getDatabaseName());
+    }
+
+
+    @Test
+    @Order(4)
+    void credentialedConnectionsGoToThePrimary() throws Exception {
+        try (Connection connection = replicaRoutingDataSource.getConnection(POSTGRES.getUsername(), POSTGRES.getPassword())) {
+            assertThat(connection.getCatalog()).isEqualTo(POSTGRES.getDatabaseName());
+        }
+    }
+
+
+    // stops the replica, so it runs last
+    @Test
+    @Order(5)
+    void readsFallBackToThePrimaryWhenTheReplicaIsDown() {
+        REPLICA.stop();
+
+        assertThat(currentDatabase(true)).isEqualTo(POSTGRES.getDatabaseName());
+
+        replicaRoutingDataSource.checkReplica();
+        assertThat(currentDatabase(true)).isEqualTo(POSTGRES.getDatabaseName());
+    }
+
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT current_database()", String.class));
+    }
+}
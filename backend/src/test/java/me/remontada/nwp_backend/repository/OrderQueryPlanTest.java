@@ -0,0 +1,160 @@
+package me.remontada.nwp_backend.repository;
+
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.StatementCounter;
+import me.remontada.nwp_backend.model.OrderStatus;
+import me.remontada.nwp_backend.util.OrderCursor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAIN checks that the order queries are served by the indexes from schema.sql once
+ * the table is big enough for the planner to care. The search SQL is the one the query
+ * builder actually emits, with criteria values inlined as literals so it can be explained.
+ */
+@SpringBootTest(properties = {
+        StatementCounter.PROPERTY,
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderQueryPlanTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 200;
+    private static final int ORDERS = 200_000;
+    private static final int PAGE_SIZE = 50;
+    private static final String TEST_USERS = "plan-test-%";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+
+    @BeforeAll
+    void createOrders() {
+        jdbcTemplate.update("INSERT INTO users (first_name, last_name, email, password) " +
+                "SELECT 'Plan', 'User ' || n, 'plan-test-' || n || '@test.com', 'x' FROM generate_series(1, ?) n", USERS);
+
+        // two years of history, almost all of it delivered or canceled, a few live and scheduled orders
+        jdbcTemplate.update("INSERT INTO orders (id, status, active, created_at, scheduled_for, created_by, total_amount, total_items) " +
+                "SELECT nextval('orders_seq'), " +
+                "CASE WHEN n % 1000 = 0 THEN 'WAITING' WHEN n % 10 = 0 THEN 'CANCELED' ELSE 'DELIVERED' END, " +
+                "false, now() - n * interval '5 minutes', " +
+                "CASE WHEN n % 5000 = 0 THEN now() + interval '1 day' END, " +
+                "u.ids[1 + n % array_length(u.ids, 1)], 10.00, 1 " +
+                "FROM generate_series(1, ?) n, " +
+                "(SELECT array_agg(id) AS ids FROM users WHERE email LIKE ?) u", ORDERS, TEST_USERS);
+
+        jdbcTemplate.execute("ANALYZE orders");
+        jdbcTemplate.execute("ANALYZE users");
+
+        userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE email LIKE ?", Long.class, TEST_USERS);
+    }
+
+
+    @AfterAll
+    void deleteOrders() {
+        jdbcTemplate.update("DELETE FROM orders WHERE created_by IN (SELECT id FROM users WHERE email LIKE ?)", TEST_USERS);
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE ?", TEST_USERS);
+        jdbcTemplate.execute("ANALYZE orders");
+    }
+
+
+    @Test
+    void unfilteredPageWalksTheCreatedAtIndex() {
+        assertThat(searchPlan(new OrderSearchRepository.Filter(null, null, null, null), null))
+                .contains("idx_orders_created_at_id")
+                .doesNotContain("Seq Scan on orders");
+    }
+
+
+    @Test
+    void nextPageSeeksIntoTheCreatedAtIndex() {
+        OrderCursor after = new OrderCursor(LocalDateTime.now().minusDays(300), Long.MAX_VALUE);
+
+        assertThat(searchPlan(new OrderSearchRepository.Filter(null, null, null, null), after))
+                .contains("idx_orders_created_at_id")
+                .doesNotContain("Seq Scan on orders");
+    }
+
+
+    @Test
+    void userFilterUsesTheCreatorIndex() {
+        assertThat(searchPlan(new OrderSearchRepository.Filter(userId, null, null, null), null))
+                .contains("idx_orders_created_by_created_at")
+                .doesNotContain("Seq Scan on orders")
+                .doesNotContain("Sort");
+    }
+
+
+    @Test
+    void dateRangeUsesTheCreatedAtIndex() {
+        LocalDateTime to = LocalDateTime.now().minusDays(30);
+        OrderSearchRepository.Filter filter = new OrderSearchRepository.Filter(null, null, to.minusDays(1), to);
+
+        assertThat(searchPlan(filter, null))
+                .contains("idx_orders_created_at_id")
+                .doesNotContain("Seq Scan on orders");
+    }
+
+
+    @Test
+    void rareStatusFilterDoesNotScanTheTable() {
+        OrderSearchRepository.Filter filter = new OrderSearchRepository.Filter(null, List.of(OrderStatus.WAITING), null, null);
+
+        assertThat(searchPlan(filter, null)).doesNotContain("Seq Scan on orders");
+    }
+
+
+    @Test
+    void admissionQueriesUseTheStatusIndex() {
+        assertThat(plan("SELECT COUNT(*) FROM orders WHERE status IN ('ORDERED', 'PREPARING', 'IN_DELIVERY') AND active = true"))
+                .contains("idx_orders_status_active")
+                .doesNotContain("Seq Scan on orders");
+
+        assertThat(plan("SELECT id FROM orders WHERE status = 'WAITING' ORDER BY created_at, id"))
+                .contains("idx_orders_status_active")
+                .doesNotContain("Seq Scan on orders");
+    }
+
+
+    @Test
+    void scheduledWindowUsesThePartialIndex() {
+        assertThat(plan("SELECT id, scheduled_for FROM orders WHERE scheduled_for IS NOT NULL " +
+                "AND scheduled_for <= now() + interval '1 hour' AND status = 'ORDERED'"))
+                .contains("idx_orders_scheduled_for")
+                .doesNotContain("Seq Scan on orders");
+    }
+
+
+    /**
+     * Plan of the SQL the builder emits for the filter. The page size is the one bind
+     * parameter left after inlining.
+     */
+    private String searchPlan(OrderSearchRepository.Filter filter, OrderCursor after) {
+        List<String> statements = StatementCounter.statementsOf(() -> orderRepository.searchOrderRows(filter, after, PAGE_SIZE));
+        assertThat(statements).hasSize(1);
+
+        String sql = statements.get(0);
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(1);
+        return plan(sql.replace("?", String.valueOf(PAGE_SIZE + 1)));
+    }
+
+
+    private String plan(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+}
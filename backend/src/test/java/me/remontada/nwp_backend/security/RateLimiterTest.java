@@ -0,0 +1,226 @@
+package me.remontada.nwp_backend.security;
+
+import me.remontada.nwp_backend.exception.RateLimitExceededException;
+import me.remontada.nwp_backend.model.Permission;
+import me.remontada.nwp_backend.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    private static final int USER_LIMIT = 5;
+    private static final int ADMIN_LIMIT = 10;
+    private static final int GLOBAL_LIMIT = 100;
+
+    private RateLimiter rateLimiter;
+
+
+    @BeforeEach
+    void setUp() {
+        // an hour per refill period, so no token comes back while a test runs
+        rateLimiter = rateLimiter(Duration.ofHours(1));
+    }
+
+
+    @Test
+    void allowsTheUsersBurstThenRejectsWithRetryAfter() {
+        User customer = customer(1L);
+
+        for (int i = 0; i < USER_LIMIT; i++) {
+            rateLimiter.checkLimit(customer, "placeOrder");
+        }
+
+        // a token comes back every hour / limit
+        assertThatThrownBy(() -> rateLimiter.checkLimit(customer, "placeOrder"))
+                .isInstanceOf(RateLimitExceededException.class)
+                .satisfies(e -> assertThat(((RateLimitExceededException) e).getRetryAfterSeconds())
+                        .isBetween(Duration.ofMinutes(11).toSeconds(), Duration.ofMinutes(12).toSeconds()));
+    }
+
+
+    @Test
+    void bucketsAreKeyedByUserAndOperation() {
+        User first = customer(1L);
+        User second = customer(2L);
+        exhaust(first, "placeOrder");
+
+        rateLimiter.checkLimit(first, "searchOrders");
+        rateLimiter.checkLimit(second, "placeOrder");
+    }
+
+
+    @Test
+    void adminsGetTheirOwnTier() {
+        User admin = new User(3L, "Admin", "User", "admin@test.com", "secret", EnumSet.allOf(Permission.class));
+
+        for (int i = 0; i < ADMIN_LIMIT; i++) {
+            rateLimiter.checkLimit(admin, "searchOrders");
+        }
+        assertThatThrownBy(() -> rateLimiter.checkLimit(admin, "searchOrders"))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+
+    @Test
+    void globalLimitHoldsAcrossUsers() {
+        for (long userId = 1; userId <= GLOBAL_LIMIT / USER_LIMIT; userId++) {
+            exhaust(customer(userId), "placeOrder");
+        }
+
+        assertThatThrownBy(() -> rateLimiter.checkLimit(customer(1000L), "placeOrder"))
+                .isInstanceOf(RateLimitExceededException.class);
+        rateLimiter.checkLimit(customer(1000L), "searchOrders");
+    }
+
+
+    @Test
+    void globalRejectionDoesNotSpendTheUsersToken() {
+        for (long userId = 1; userId <= GLOBAL_LIMIT / USER_LIMIT; userId++) {
+            exhaust(customer(userId), "placeOrder");
+        }
+
+        for (int i = 0; i < USER_LIMIT * 2; i++) {
+            assertThatThrownBy(() -> rateLimiter.checkLimit(customer(1000L), "placeOrder"))
+                    .isInstanceOf(RateLimitExceededException.class);
+        }
+
+        // still full: a full bucket's "full at" is not in the future
+        AtomicLong bucket = (AtomicLong) userBuckets().get("1000:placeOrder");
+        assertThat(bucket.get() - System.nanoTime()).isNotPositive();
+    }
+
+
+    @Test
+    void concurrentRequestsNeverTakeMoreThanTheLimit() throws Exception {
+        User customer = customer(1L);
+        int threads = 8;
+        int attemptsPerThread = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int allowed = 0;
+                for (int attempt = 0; attempt < attemptsPerThread; attempt++) {
+                    try {
+                        rateLimiter.checkLimit(customer, "placeOrder");
+                        allowed++;
+                    } catch (RateLimitExceededException e) {
+                        // expected once the bucket is empty
+                    }
+                }
+                return allowed;
+            }));
+        }
+
+        start.countDown();
+        int allowed = 0;
+        for (Future<Integer> result : results) {
+            allowed += result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(allowed).isEqualTo(USER_LIMIT);
+    }
+
+
+    @Test
+    void tokensComeBackOverTime() throws Exception {
+        rateLimiter = rateLimiter(Duration.ofMillis(250));
+        User customer = customer(1L);
+        exhaust(customer, "placeOrder");
+
+        Thread.sleep(300);
+
+        rateLimiter.checkLimit(customer, "placeOrder");
+    }
+
+
+    @Test
+    void idleBucketsAreEvictedOnceFull() throws Exception {
+        rateLimiter = rateLimiter(Duration.ofMillis(500));
+        exhaust(customer(1L), "placeOrder");
+
+        rateLimiter.evictIdleBuckets();
+        assertThat(userBuckets()).hasSize(1);
+
+        Thread.sleep(600);
+        rateLimiter.evictIdleBuckets();
+        assertThat(userBuckets()).isEmpty();
+    }
+
+
+    @Test
+    void usersPastTheKeyCapAreOnlyHeldByTheGlobalLimit() {
+        ReflectionTestUtils.setField(rateLimiter, "maxTrackedKeys", 1);
+        exhaust(customer(1L), "placeOrder");
+
+        for (int i = 0; i < USER_LIMIT * 2; i++) {
+            rateLimiter.checkLimit(customer(2L), "placeOrder");
+        }
+        assertThat(userBuckets()).hasSize(1);
+    }
+
+
+    @Test
+    void disabledLimiterLetsEverythingThrough() {
+        ReflectionTestUtils.setField(rateLimiter, "enabled", false);
+        User customer = customer(1L);
+
+        for (int i = 0; i < GLOBAL_LIMIT * 2; i++) {
+            rateLimiter.checkLimit(customer, "placeOrder");
+        }
+    }
+
+
+    private void exhaust(User user, String operation) {
+        for (int i = 0; i < USER_LIMIT; i++) {
+            rateLimiter.checkLimit(user, operation);
+        }
+        assertThatThrownBy(() -> rateLimiter.checkLimit(user, operation))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> userBuckets() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(rateLimiter, "userBuckets");
+    }
+
+
+    private static RateLimiter rateLimiter(Duration period) {
+        RateLimiter limiter = new RateLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "period", period);
+        ReflectionTestUtils.setField(limiter, "userLimit", USER_LIMIT);
+        ReflectionTestUtils.setField(limiter, "adminLimit", ADMIN_LIMIT);
+        ReflectionTestUtils.setField(limiter, "globalLimit", GLOBAL_LIMIT);
+        ReflectionTestUtils.setField(limiter, "maxTrackedKeys", 100_000);
+        return limiter;
+    }
+
+
+    private static User customer(Long id) {
+        return new User(id, "Test", "Customer", "customer" + id + "@test.com", "secret",
+                Set.of(Permission.CAN_PLACE_ORDER, Permission.CAN_SEARCH_ORDER));
+    }
+}
@@ -0,0 +1,139 @@
+package me.remontada.nwp_backend.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.StatementCounter;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * N concurrent misses on the menu and on a user by email must reach the DB with exactly one
+ * query. The table is locked while the callers start, so the first query blocks in Postgres
+ * and every other caller is known to arrive while it is in flight; only then is the lock
+ * released.
+ */
+@SpringBootTest(properties = StatementCounter.PROPERTY)
+class CoalescedLoadsTest extends PostgresIntegrationTest {
+
+    private static final int CALLERS = 16;
+
+    @Autowired
+    private MenuCache menuCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+
+    @Test
+    void concurrentMenuMissesRunOneQuery() throws Exception {
+        menuCache.get();
+        menuCache.invalidate();
+
+        Results results = runWhileLocked("dishes", menuCache::get);
+
+        assertThat(results.count("from dishes")).isEqualTo(1);
+        Object first = results.value(0);
+        for (int i = 0; i < CALLERS; i++) {
+            assertThat(results.value(i)).isSameAs(first);
+        }
+    }
+
+
+    @Test
+    void concurrentUserMissesOutsideATransactionRunOneQuery() throws Exception {
+        // the query and entity caches would answer without any SQL
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        Results results = runWhileLocked("users", () -> userService.findByEmail("customer@test.com").orElseThrow());
+
+        assertThat(results.count("from users")).isEqualTo(1);
+        for (int i = 0; i < CALLERS; i++) {
+            assertThat(results.value(i)).hasFieldOrPropertyWithValue("email", "customer@test.com");
+        }
+    }
+
+
+    /**
+     * Holds an exclusive lock on the table, starts the callers and releases the lock once one
+     * query waits for it and every other caller is parked on that query's result.
+     */
+    private Results runWhileLocked(String table, Supplier<Object> call) throws Exception {
+        AtomicReferenceArray<StatementCounter.Recorded<Object>> recorded = new AtomicReferenceArray<>(CALLERS);
+        List<Thread> callers = new ArrayList<>();
+
+        try (Connection lock = dataSource.getConnection()) {
+            lock.setAutoCommit(false);
+            try (Statement statement = lock.createStatement()) {
+                statement.execute("LOCK TABLE " + table + " IN ACCESS EXCLUSIVE MODE");
+            }
+
+            for (int i = 0; i < CALLERS; i++) {
+                int caller = i;
+                Thread thread = new Thread(() -> recorded.set(caller, StatementCounter.record(call)));
+                callers.add(thread);
+                thread.start();
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (waitingQueries(table) < 1
+                    || callers.stream().filter(thread -> thread.getState() == Thread.State.WAITING).count() < CALLERS - 1) {
+                assertThat(System.nanoTime()).isLessThan(deadline);
+                Thread.sleep(1);
+            }
+            assertThat(waitingQueries(table)).isEqualTo(1);
+
+            lock.rollback();
+        }
+
+        for (Thread thread : callers) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        return new Results(recorded);
+    }
+
+
+    private long waitingQueries(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_stat_activity " +
+                "WHERE wait_event_type = 'Lock' AND query ILIKE ?", Long.class, "%from " + table + "%");
+    }
+
+
+    private record Results(AtomicReferenceArray<StatementCounter.Recorded<Object>> recorded) {
+
+        long count(String fragment) {
+            long total = 0;
+            for (int i = 0; i < recorded.length(); i++) {
+                total += recorded.get(i).count(fragment);
+            }
+            return total;
+        }
+
+
+        Object value(int caller) {
+            return recorded.get(caller).result();
+        }
+    }
+}
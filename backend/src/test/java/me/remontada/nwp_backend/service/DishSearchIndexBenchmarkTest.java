@@ -0,0 +1,164 @@
+package me.remontada.nwp_backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.model.Dish;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Index build time, retained heap and query latency on a 100k dish menu, next to the linear
+ * substring scan the index replaced, plus the cost of a single dish change and of searching
+ * while a full rebuild runs in the background. Run with -Pbenchmark.
+ */
+@Slf4j
+@Tag("benchmark")
+class DishSearchIndexBenchmarkTest {
+
+    private static final int DISHES = 100_000;
+    private static final int VOCABULARY = 5_000;
+    private static final int QUERIES = 1_000;
+    private static final String[] SYLLABLES = {"ba", "ce", "di", "fo", "gu", "ka", "le", "mi", "no", "pa",
+            "ri", "sa", "te", "vo", "za", "ju", "ne", "lo", "ra", "si"};
+
+
+    @Test
+    void searchOnHundredThousandDishes() throws Exception {
+        Random random = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(random);
+        }
+
+        List<Dish> dishes = new ArrayList<>(DISHES);
+        for (long id = 1; id <= DISHES; id++) {
+            String name = words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)];
+            String description = String.join(" ", Arrays.asList(words[random.nextInt(VOCABULARY)],
+                    words[random.nextInt(VOCABULARY)], words[random.nextInt(VOCABULARY)]));
+            dishes.add(DishSearchIndexTest.dish(id, name, description, true));
+        }
+
+        MenuCache menuCache = mock(MenuCache.class);
+        MenuSnapshot menu = MenuSnapshot.of(1, dishes);
+        when(menuCache.get()).thenReturn(menu);
+
+        DishSearchIndex index = new DishSearchIndex();
+        ReflectionTestUtils.setField(index, "menuCache", menuCache);
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(index, "minSimilarity", 0.4);
+        ReflectionTestUtils.setField(index, "maxIncrementalChanges", 1000);
+        index.init();
+
+        // the dishes themselves belong to the snapshot, only the index structures count
+        long heapBefore = usedHeapAfterGc();
+        long buildStart = System.nanoTime();
+        index.search("warm up");
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        long indexBytes = usedHeapAfterGc() - heapBefore;
+
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(dishes.get(random.nextInt(DISHES)).getName());
+        }
+
+        long[] indexNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = queries.get(i);
+            long start = System.nanoTime();
+            List<Dish> found = index.search(query);
+            indexNanos[i] = System.nanoTime() - start;
+            assertThat(found).extracting(Dish::getName).contains(query);
+        }
+
+        long[] scanNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = queries.get(i);
+            long start = System.nanoTime();
+            long matches = dishes.stream()
+                    .filter(dish -> dish.getName().toLowerCase().contains(query)
+                            || dish.getDescription().toLowerCase().contains(query))
+                    .count();
+            scanNanos[i] = System.nanoTime() - start;
+            assertThat(matches).isPositive();
+        }
+
+        // one renamed dish is patched in place on the searching thread
+        List<Dish> renamed = new ArrayList<>(dishes);
+        renamed.set(0, DishSearchIndexTest.dish(1L, "zazazaza vovovo", dishes.get(0).getDescription(), true));
+        when(menuCache.get()).thenReturn(MenuSnapshot.of(2, renamed));
+        long updateStart = System.nanoTime();
+        assertThat(index.search("zazazaza vovovo")).extracting(Dish::getName).contains("zazazaza vovovo");
+        long updateMicros = (System.nanoTime() - updateStart) / 1000;
+
+        // a menu where every dish changed is rebuilt in the background; searches meanwhile
+        // keep answering from the previous index
+        List<Dish> replaced = new ArrayList<>(DISHES);
+        for (Dish dish : renamed) {
+            replaced.add(DishSearchIndexTest.dish(dish.getId(), dish.getName() + " xqxq", dish.getDescription(), true));
+        }
+        when(menuCache.get()).thenReturn(MenuSnapshot.of(3, replaced));
+
+        long[] duringRebuildNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            index.search(queries.get(i));
+            duringRebuildNanos[i] = System.nanoTime() - start;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (index.search("xqxq").isEmpty()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        index.shutdown();
+
+        log.info("{} dishes: index built in {} ms, retains {} MB; index p50 {} µs, p99 {} µs; " +
+                        "linear scan p50 {} µs, p99 {} µs; single dish change applied in {} µs; " +
+                        "search during a full rebuild p50 {} µs, p99 {} µs",
+                DISHES, buildMillis, indexBytes / (1024 * 1024), percentile(indexNanos, 50), percentile(indexNanos, 99),
+                percentile(scanNanos, 50), percentile(scanNanos, 99), updateMicros,
+                percentile(duringRebuildNanos, 50), percentile(duringRebuildNanos, 99));
+
+        assertThat(percentile(indexNanos, 50)).isLessThan(percentile(scanNanos, 50));
+        assertThat(indexBytes).isPositive();
+        // a full rebuild takes seconds at this size; searches must not wait for it
+        assertThat(percentile(duringRebuildNanos, 99)).isLessThan(TimeUnit.MILLISECONDS.toMicros(100));
+    }
+
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+
+    private static long percentile(long[] nanos, int percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1000;
+    }
+}
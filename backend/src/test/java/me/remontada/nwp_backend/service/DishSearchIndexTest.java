@@ -0,0 +1,157 @@
+package me.remontada.nwp_backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.remontada.nwp_backend.model.Dish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DishSearchIndexTest {
+
+    private MenuCache menuCache;
+    private DishSearchIndex index;
+
+
+    @BeforeEach
+    void setUp() {
+        menuCache = mock(MenuCache.class);
+        index = new DishSearchIndex();
+        ReflectionTestUtils.setField(index, "menuCache", menuCache);
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(index, "minSimilarity", 0.4);
+        ReflectionTestUtils.setField(index, "maxIncrementalChanges", 2);
+        index.init();
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+
+    @Test
+    void findsDishesIgnoringCaseAndAccents() {
+        menu(1, dish(1L, "Ćevapi", "Grilled minced meat", true),
+                dish(2L, "Pljeskavica", "Burger", true));
+
+        assertThat(names(index.search("cevapi"))).containsExactly("Ćevapi");
+        assertThat(names(index.search("ĆEVAPI"))).containsExactly("Ćevapi");
+    }
+
+
+    @Test
+    void toleratesTypos() {
+        menu(1, dish(1L, "Margherita Pizza", "Tomato and mozzarella", true));
+
+        assertThat(names(index.search("margarita"))).containsExactly("Margherita Pizza");
+    }
+
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        menu(1, dish(1L, "Garlic Bread", "Bread with garlic butter", true),
+                dish(2L, "Tomato Soup", "Served with bread", true));
+
+        assertThat(names(index.search("bread"))).containsExactly("Garlic Bread", "Tomato Soup");
+    }
+
+
+    @Test
+    void matchesShortQueriesBySubstring() {
+        menu(1, dish(1L, "Tiramisu", "Coffee dessert", true),
+                dish(2L, "Burek", "Pastry", true));
+
+        assertThat(names(index.search("mi"))).containsExactly("Tiramisu");
+    }
+
+
+    @Test
+    void skipsUnavailableDishes() {
+        menu(1, dish(1L, "Caesar Salad", "Lettuce", true),
+                dish(2L, "Caesar Wrap", "Lettuce", false));
+
+        assertThat(names(index.search("caesar"))).containsExactly("Caesar Salad");
+    }
+
+
+    @Test
+    void emptyQueryFindsNothing() {
+        menu(1, dish(1L, "Caesar Salad", "Lettuce", true));
+
+        assertThat(index.search("   ")).isEmpty();
+        assertThat(index.search(null)).isEmpty();
+    }
+
+
+    @Test
+    void followsTheMenuSnapshot() {
+        menu(1, dish(1L, "Goulash", "Beef stew", true));
+        assertThat(names(index.search("goulash"))).containsExactly("Goulash");
+
+        menu(2, dish(1L, "Beef Goulash", "Beef stew", true), dish(2L, "Sarma", "Cabbage rolls", true));
+        assertThat(names(index.search("goulash"))).containsExactly("Beef Goulash");
+        assertThat(names(index.search("sarma"))).containsExactly("Sarma");
+
+        menu(3, dish(2L, "Sarma", "Cabbage rolls", true));
+        assertThat(index.search("goulash")).isEmpty();
+    }
+
+
+    @Test
+    void appliesSmallChangesInPlace() {
+        menu(1, dish(1L, "Goulash", "Beef stew", true), dish(2L, "Sarma", "Cabbage rolls", true));
+        index.search("goulash");
+        Object built = ReflectionTestUtils.getField(index, "index");
+
+        menu(2, dish(1L, "Goulash", "Beef stew with paprika", true), dish(2L, "Sarma", "Cabbage rolls", false));
+
+        assertThat(names(index.search("paprika"))).containsExactly("Goulash");
+        assertThat(index.search("sarma")).isEmpty();
+        assertThat(ReflectionTestUtils.getField(index, "index")).isSameAs(built);
+    }
+
+
+    @Test
+    void largeChangesAreBuiltInTheBackgroundWhileTheOldIndexServes() throws Exception {
+        menu(1, dish(1L, "Goulash", "Beef stew", true));
+        index.search("goulash");
+
+        menu(2, dish(2L, "Sarma", "Cabbage rolls", true), dish(3L, "Burek", "Pastry", true),
+                dish(4L, "Ajvar", "Pepper relish", true));
+
+        // three changes are over the limit of two: this search still sees the previous menu
+        assertThat(names(index.search("goulash"))).containsExactly("Goulash");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!index.search("sarma").stream().map(Dish::getName).toList().equals(List.of("Sarma"))) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        assertThat(index.search("goulash")).isEmpty();
+    }
+
+
+    private void menu(long version, Dish... dishes) {
+        when(menuCache.get()).thenReturn(MenuSnapshot.of(version, List.of(dishes)));
+    }
+
+
+    static Dish dish(Long id, String name, String description, boolean available) {
+        return new Dish(id, name, description, new BigDecimal("9.90"), "Main", available);
+    }
+
+
+    private static List<String> names(List<Dish> dishes) {
+        return dishes.stream().map(Dish::getName).toList();
+    }
+}
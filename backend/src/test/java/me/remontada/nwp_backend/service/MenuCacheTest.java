@@ -0,0 +1,99 @@
+package me.remontada.nwp_backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.remontada.nwp_backend.datasource.PrimaryReads;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.repository.DishRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MenuCacheTest {
+
+    private DishRepository dishRepository;
+    private MenuCache menuCache;
+
+
+    @BeforeEach
+    void setUp() {
+        dishRepository = mock(DishRepository.class);
+        PrimaryReads primaryReads = mock(PrimaryReads.class);
+        when(primaryReads.read(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
+        menuCache = new MenuCache();
+        ReflectionTestUtils.setField(menuCache, "dishRepository", dishRepository);
+        ReflectionTestUtils.setField(menuCache, "primaryReads", primaryReads);
+        ReflectionTestUtils.setField(menuCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(menuCache, "ttl", Duration.ofMinutes(5));
+        menuCache.init();
+
+        dishes(dish(1L, "Goulash", true));
+    }
+
+
+    @Test
+    void servesTheSnapshotFromMemoryUntilInvalidated() {
+        MenuSnapshot first = menuCache.get();
+
+        assertThat(menuCache.get()).isSameAs(first);
+        verify(dishRepository, times(1)).findAll();
+
+        dishes(dish(1L, "Goulash", true), dish(2L, "Sarma", true));
+        menuCache.invalidate();
+
+        MenuSnapshot second = menuCache.get();
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.allDishes()).hasSize(2);
+        verify(dishRepository, times(2)).findAll();
+    }
+
+
+    @Test
+    void unchangedMenuKeepsItsSnapshotWhenTheTtlExpires() throws Exception {
+        ReflectionTestUtils.setField(menuCache, "ttl", Duration.ofMillis(1));
+        MenuSnapshot first = menuCache.get();
+
+        Thread.sleep(5);
+        assertThat(menuCache.get()).isSameAs(first);
+        verify(dishRepository, times(2)).findAll();
+
+        dishes(dish(1L, "Goulash", false));
+        Thread.sleep(5);
+        assertThat(menuCache.get()).isNotSameAs(first);
+    }
+
+
+    @Test
+    void writeThatLeavesTheMenuAsItWasKeepsTheSnapshot() {
+        MenuSnapshot first = menuCache.get();
+
+        menuCache.invalidate();
+        assertThat(menuCache.get()).isSameAs(first);
+
+        // and the reload counts for the new version, it is not reloaded again
+        menuCache.get();
+        verify(dishRepository, times(2)).findAll();
+    }
+
+
+    private void dishes(Dish... dishes) {
+        when(dishRepository.findAll()).thenReturn(List.of(dishes));
+    }
+
+
+    private static Dish dish(Long id, String name, boolean available) {
+        return new Dish(id, name, name, new BigDecimal("9.90"), "Main", available);
+    }
+}
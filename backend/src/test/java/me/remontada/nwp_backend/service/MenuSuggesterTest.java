@@ -0,0 +1,160 @@
+package me.remontada.nwp_backend.service;
+
+import me.remontada.nwp_backend.datasource.PrimaryReads;
+import me.remontada.nwp_backend.dto.response.DishSuggestionDTO;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MenuSuggesterTest {
+
+    private MenuCache menuCache;
+    private OrderItemRepository orderItemRepository;
+    private MenuSuggester suggester;
+
+
+    @BeforeEach
+    void setUp() {
+        menuCache = mock(MenuCache.class);
+        orderItemRepository = mock(OrderItemRepository.class);
+        PrimaryReads primaryReads = mock(PrimaryReads.class);
+        when(primaryReads.read(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
+        suggester = new MenuSuggester();
+        ReflectionTestUtils.setField(suggester, "menuCache", menuCache);
+        ReflectionTestUtils.setField(suggester, "orderItemRepository", orderItemRepository);
+        ReflectionTestUtils.setField(suggester, "primaryReads", primaryReads);
+        ReflectionTestUtils.setField(suggester, "maxResults", 10);
+    }
+
+
+    @Test
+    void matchesTheStartOfEveryWord() {
+        menu(1, dish(1L, "Margherita Pizza", "Pizza", true),
+                dish(2L, "Spaghetti Carbonara", "Pasta", true));
+
+        assertThat(texts(suggester.suggest("mar", 10))).containsExactly("Margherita Pizza");
+        assertThat(texts(suggester.suggest("carb", 10))).containsExactly("Spaghetti Carbonara");
+        // only word starts, not the middle of a word
+        assertThat(suggester.suggest("herita", 10)).isEmpty();
+    }
+
+
+    @Test
+    void ignoresCaseAndAccents() {
+        menu(1, dish(1L, "Ćevapi", "Grill", true));
+
+        assertThat(texts(suggester.suggest("cev", 10))).containsExactly("Ćevapi");
+        assertThat(texts(suggester.suggest("ĆEV", 10))).containsExactly("Ćevapi");
+    }
+
+
+    @Test
+    void suggestsCategoriesWithTheirDishesPopularity() {
+        menu(1, dish(1L, "Margherita Pizza", "Pizza", true),
+                dish(2L, "Pepperoni Pizza", "Pizza", true));
+        popularity(row(1L, 3L), row(2L, 4L));
+
+        DishSuggestionDTO category = suggester.suggest("pizza", 10).stream()
+                .filter(suggestion -> suggestion.getType().equals("CATEGORY"))
+                .findFirst().orElseThrow();
+
+        assertThat(category.getText()).isEqualTo("Pizza");
+        assertThat(category.getDishId()).isNull();
+        assertThat(category.getPopularity()).isEqualTo(7L);
+    }
+
+
+    @Test
+    void ordersByPopularityAndAppliesTheLimit() {
+        menu(1, dish(1L, "Margherita Pizza", "Pizza", true),
+                dish(2L, "Pepperoni Pizza", "Pizza", true),
+                dish(3L, "Hawaiian Pizza", "Pizza", true));
+        popularity(row(1L, 5L), row(2L, 20L));
+
+        assertThat(texts(suggester.suggest("pi", 10)))
+                .containsExactly("Pizza", "Pepperoni Pizza", "Margherita Pizza", "Hawaiian Pizza");
+        assertThat(texts(suggester.suggest("pi", 2))).containsExactly("Pizza", "Pepperoni Pizza");
+    }
+
+
+    @Test
+    void skipsUnavailableDishes() {
+        menu(1, dish(1L, "Caesar Salad", "Salad", true),
+                dish(2L, "Caesar Wrap", "Wraps", false));
+
+        assertThat(texts(suggester.suggest("caesar", 10))).containsExactly("Caesar Salad");
+    }
+
+
+    @Test
+    void blankPrefixSuggestsNothing() {
+        menu(1, dish(1L, "Caesar Salad", "Salad", true));
+
+        assertThat(suggester.suggest("  ", 10)).isEmpty();
+        assertThat(suggester.suggest("xyz", 10)).isEmpty();
+    }
+
+
+    @Test
+    void followsTheMenuSnapshotAndPopularity() {
+        menu(1, dish(1L, "Goulash", "Stew", true));
+        assertThat(texts(suggester.suggest("gou", 10))).containsExactly("Goulash");
+
+        menu(2, dish(1L, "Goulash", "Stew", true), dish(2L, "Gourmet Burger", "Burgers", true));
+        assertThat(texts(suggester.suggest("gou", 10))).containsExactly("Goulash", "Gourmet Burger");
+
+        popularity(row(2L, 9L));
+        assertThat(texts(suggester.suggest("gou", 10))).containsExactly("Gourmet Burger", "Goulash");
+
+        menu(3, dish(2L, "Gourmet Burger", "Burgers", true));
+        assertThat(texts(suggester.suggest("gou", 10))).containsExactly("Gourmet Burger");
+    }
+
+
+    private void menu(long version, Dish... dishes) {
+        when(menuCache.get()).thenReturn(MenuSnapshot.of(version, List.of(dishes)));
+    }
+
+
+    private void popularity(OrderItemRepository.DishPopularity... rows) {
+        when(orderItemRepository.findDishPopularity()).thenReturn(List.of(rows));
+        suggester.refreshPopularity();
+    }
+
+
+    private static OrderItemRepository.DishPopularity row(Long dishId, Long ordered) {
+        return new OrderItemRepository.DishPopularity() {
+            @Override
+            public Long getDishId() {
+                return dishId;
+            }
+
+            @Override
+            public Long getOrdered() {
+                return ordered;
+            }
+        };
+    }
+
+
+    private static Dish dish(Long id, String name, String category, boolean available) {
+        return new Dish(id, name, name, new BigDecimal("9.90"), category, available);
+    }
+
+
+    private static List<String> texts(List<DishSuggestionDTO> suggestions) {
+        return suggestions.stream().map(DishSuggestionDTO::getText).toList();
+    }
+}
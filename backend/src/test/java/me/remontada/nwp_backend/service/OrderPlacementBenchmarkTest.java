@@ -0,0 +1,123 @@
+package me.remontada.nwp_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.StatementCounter;
+import me.remontada.nwp_backend.dto.OrderItemRequest;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.repository.DishRepository;
+import me.remontada.nwp_backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order placement latency as the number of lines grows. Every line is a different dish,
+ * so a per-line lookup would show up as latency growing with the line count; with the
+ * single dish query it stays close to flat. Run with -Pbenchmark.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        StatementCounter.PROPERTY,
+        "orders.admission.max-queue-depth=1000000",
+        "spring.jpa.show-sql=false"
+})
+class OrderPlacementBenchmarkTest extends PostgresIntegrationTest {
+
+    private static final int[] LINE_COUNTS = {1, 5, 10, 20, 50};
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DishRepository dishRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Dish> dishes;
+
+
+    @BeforeEach
+    void setUp() {
+        clearOrders();
+        dishes = dishRepository.saveAll(IntStream.rangeClosed(1, LINE_COUNTS[LINE_COUNTS.length - 1])
+                .mapToObj(i -> new Dish(null, "Benchmark dish " + i, "Placement benchmark",
+                        new BigDecimal("5.00"), "Benchmark", true))
+                .toList());
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        clearOrders();
+        dishRepository.deleteAll(dishes);
+    }
+
+
+    @Test
+    void placementLatencyByLineCount() {
+        User customer = userRepository.findByEmail("customer@test.com").orElseThrow();
+
+        for (int lines : LINE_COUNTS) {
+            List<OrderItemRequest> items = dishes.subList(0, lines).stream()
+                    .map(dish -> new OrderItemRequest(dish.getId(), 1))
+                    .toList();
+
+            for (int i = 0; i < WARMUP; i++) {
+                orderService.placeOrder(customer, items);
+            }
+
+            long[] nanos = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                orderService.placeOrder(customer, items);
+                nanos[i] = System.nanoTime() - start;
+            }
+
+            StatementCounter.Recorded<?> recorded = StatementCounter.record(() -> orderService.placeOrder(customer, items));
+
+            log.info("{} lines: p50 {} µs, p99 {} µs, {} statements", lines,
+                    percentile(nanos, 50), percentile(nanos, 99), recorded.statements().size());
+
+            // every line's dish comes from the one lookup
+            assertThat(recorded.count("from dishes")).isEqualTo(1);
+        }
+    }
+
+
+    private void clearOrders() {
+        jdbcTemplate.update("DELETE FROM order_status_transitions");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        admissionController.reconcile();
+    }
+
+
+    private static long percentile(long[] nanos, int percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1000;
+    }
+}
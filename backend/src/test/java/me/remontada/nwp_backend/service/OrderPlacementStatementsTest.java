@@ -0,0 +1,113 @@
+package me.remontada.nwp_backend.service;
+
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.StatementCounter;
+import me.remontada.nwp_backend.dto.OrderItemRequest;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.model.Order;
+import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.repository.DishRepository;
+import me.remontada.nwp_backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements per placeOrder: the order and all of its lines go out as one batched insert
+ * each, so the count does not grow with the number of lines.
+ */
+@SpringBootTest(properties = StatementCounter.PROPERTY)
+class OrderPlacementStatementsTest extends PostgresIntegrationTest {
+
+    private static final int LINES = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DishRepository dishRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Dish> dishes;
+    private User customer;
+
+
+    @BeforeEach
+    void setUp() {
+        clearOrders();
+        dishes = dishRepository.saveAll(IntStream.rangeClosed(1, LINES)
+                .mapToObj(i -> new Dish(null, "Statement dish " + i, "Statement count test",
+                        new BigDecimal("5.00"), "Statements", true))
+                .toList());
+        customer = userRepository.findByEmail("customer@test.com").orElseThrow();
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        clearOrders();
+        dishRepository.deleteAll(dishes);
+    }
+
+
+    @Test
+    void linesAreInsertedInOneBatch() {
+        StatementCounter.Recorded<Order> placed = place(LINES);
+
+        assertThat(placed.result().getItems()).hasSize(LINES);
+        assertThat(placed.count("from dishes")).isEqualTo(1);
+        assertThat(placed.count("insert into orders")).isEqualTo(1);
+        assertThat(placed.count("insert into order_items")).isEqualTo(1);
+        assertThat(placed.count("insert into order_status_transitions")).isEqualTo(1);
+        // the pooled optimizer hands out 50 ids per call
+        assertThat(placed.count("nextval")).isLessThanOrEqualTo(3);
+    }
+
+
+    @Test
+    void statementCountDoesNotGrowWithTheLineCount() {
+        StatementCounter.Recorded<Order> single = place(1);
+        clearOrders();
+        StatementCounter.Recorded<Order> many = place(LINES);
+
+        assertThat(withoutSequenceCalls(many)).isEqualTo(withoutSequenceCalls(single));
+    }
+
+
+    private StatementCounter.Recorded<Order> place(int lines) {
+        List<OrderItemRequest> items = dishes.subList(0, lines).stream()
+                .map(dish -> new OrderItemRequest(dish.getId(), 2))
+                .toList();
+        return StatementCounter.record(() -> orderService.placeOrder(customer, items));
+    }
+
+
+    private static long withoutSequenceCalls(StatementCounter.Recorded<?> recorded) {
+        return recorded.statements().size() - recorded.count("nextval");
+    }
+
+
+    private void clearOrders() {
+        jdbcTemplate.update("DELETE FROM order_status_transitions");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        admissionController.reconcile();
+    }
+}
@@ -0,0 +1,144 @@
+package me.remontada.nwp_backend.service;
+
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.StatementCounter;
+import me.remontada.nwp_backend.dto.OrderItemRequest;
+import me.remontada.nwp_backend.dto.response.OrderResponseDTO;
+import me.remontada.nwp_backend.mapper.OrderMapper;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.model.Order;
+import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.repository.DishRepository;
+import me.remontada.nwp_backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts of the entity read path: a page of orders and a tracked order are
+ * mapped with a fixed number of statements, however many orders, lines and users they
+ * touch. Mapping runs inside a transaction, like it does in the request under open-in-view,
+ * so any lazy load would be counted.
+ */
+@SpringBootTest(properties = {
+        StatementCounter.PROPERTY,
+        "orders.search.projection-enabled=false",
+        "orders.admission.max-queue-depth=1000"
+})
+class OrderReadStatementsTest extends PostgresIntegrationTest {
+
+    private static final int ORDERS = 30;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private DishRepository dishRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User customer;
+    private User admin;
+    private final List<Long> orderIds = new ArrayList<>();
+
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_status_transitions");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        admissionController.reconcile();
+
+        customer = userRepository.findByEmail("customer@test.com").orElseThrow();
+        admin = userRepository.findByEmail("admin@foodorder.com").orElseThrow();
+        List<Dish> dishes = dishRepository.findByAvailableTrueOrderByCategory();
+
+        orderIds.clear();
+        for (int i = 0; i < ORDERS; i++) {
+            // customers and admins, one to three lines of different dishes
+            User owner = i % 3 == 0 ? admin : customer;
+            List<OrderItemRequest> items = new ArrayList<>();
+            for (int line = 0; line <= i % 3; line++) {
+                items.add(new OrderItemRequest(dishes.get((i + line) % dishes.size()).getId(), line + 1));
+            }
+            orderIds.add(orderService.placeOrder(owner, items).getId());
+        }
+    }
+
+
+    @Test
+    void searchRunsTheSameStatementsForAnyPageSize() {
+        StatementCounter.Recorded<Slice<OrderResponseDTO>> small = search(admin, 3);
+        StatementCounter.Recorded<Slice<OrderResponseDTO>> large = search(admin, ORDERS);
+
+        assertThat(small.result().getContent()).hasSize(3);
+        assertThat(large.result().getContent()).hasSize(ORDERS);
+        assertThat(large.result().getContent()).allSatisfy(order -> {
+            assertThat(order.getItems()).isNotEmpty();
+            assertThat(order.getCreatedBy()).isNotNull();
+        });
+
+        // page, creators, lines with dishes
+        assertThat(large.statements()).hasSize(small.statements().size());
+        assertThat(large.statements().size()).isLessThanOrEqualTo(3);
+    }
+
+
+    @Test
+    void customerSearchRunsTheSameStatements() {
+        StatementCounter.Recorded<Slice<OrderResponseDTO>> page = search(customer, ORDERS);
+
+        assertThat(page.result().getContent()).hasSize(ORDERS - ORDERS / 3);
+        assertThat(page.statements().size()).isLessThanOrEqualTo(3);
+    }
+
+
+    @Test
+    void trackingAnOrderLoadsItsGraphInOneQuery() {
+        Long orderId = orderIds.get(ORDERS - 1);
+
+        StatementCounter.Recorded<OrderResponseDTO> tracked = StatementCounter.record(() -> readOnly().execute(
+                status -> orderMapper.toResponseDTO(orderService.trackOrder(orderId, customer))));
+
+        assertThat(tracked.result().getItems()).hasSize(3);
+        // the order graph, plus the creator's eager permissions when they are not in the second-level cache
+        assertThat(tracked.statements().size()).isLessThanOrEqualTo(2);
+        assertThat(tracked.count("from orders")).isEqualTo(1);
+    }
+
+
+    private StatementCounter.Recorded<Slice<OrderResponseDTO>> search(User user, int size) {
+        return StatementCounter.record(() -> readOnly().execute(
+                status -> orderService.searchOrders(user, null, null, null, null, null, size)));
+    }
+
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
@@ -0,0 +1,147 @@
+package me.remontada.nwp_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.StatementCounter;
+import me.remontada.nwp_backend.dto.OrderItemRequest;
+import me.remontada.nwp_backend.dto.response.OrderResponseDTO;
+import me.remontada.nwp_backend.model.Dish;
+import me.remontada.nwp_backend.model.User;
+import me.remontada.nwp_backend.repository.DishRepository;
+import me.remontada.nwp_backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap allocated per searchOrders call on the entity path and on the DTO projection path,
+ * for a full page of orders. Measured with the per-thread allocation counter, so only the
+ * request's own work is counted. Run with -Pbenchmark.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        StatementCounter.PROPERTY,
+        "orders.admission.max-queue-depth=1000",
+        "spring.jpa.show-sql=false"
+})
+class OrderSearchAllocationBenchmarkTest extends PostgresIntegrationTest {
+
+    private static final int ORDERS = 200;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DishRepository dishRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User admin;
+
+
+    @BeforeEach
+    void setUp() {
+        clearOrders();
+
+        admin = userRepository.findByEmail("admin@foodorder.com").orElseThrow();
+        User customer = userRepository.findByEmail("customer@test.com").orElseThrow();
+        List<Dish> dishes = dishRepository.findByAvailableTrueOrderByCategory();
+
+        for (int i = 0; i < ORDERS; i++) {
+            List<OrderItemRequest> items = new ArrayList<>();
+            for (int line = 0; line < 3; line++) {
+                items.add(new OrderItemRequest(dishes.get((i + line) % dishes.size()).getId(), 1));
+            }
+            orderService.placeOrder(i % 2 == 0 ? customer : admin, items);
+        }
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        projection(true);
+        clearOrders();
+    }
+
+
+    @Test
+    void projectionAllocatesLessThanEntities() {
+        projection(false);
+        long entityBytes = bytesPerSearch();
+        long entityStatements = StatementCounter.record(this::search).statements().size();
+
+        projection(true);
+        long projectionBytes = bytesPerSearch();
+        long projectionStatements = StatementCounter.record(this::search).statements().size();
+
+        log.info("searchOrders, page of {}: entities {} KB and {} statements, projection {} KB and {} statements",
+                ORDERS, entityBytes / 1024, entityStatements, projectionBytes / 1024, projectionStatements);
+
+        // page rows and their lines
+        assertThat(projectionStatements).isLessThanOrEqualTo(2);
+        assertThat(projectionBytes).isLessThan(entityBytes);
+    }
+
+
+    private long bytesPerSearch() {
+        for (int i = 0; i < WARMUP; i++) {
+            search();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long[] bytes = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            Slice<OrderResponseDTO> page = search();
+            bytes[i] = threads.getThreadAllocatedBytes(threadId) - before;
+            assertThat(page.getContent()).hasSize(ORDERS);
+        }
+
+        Arrays.sort(bytes);
+        return bytes[ITERATIONS / 2];
+    }
+
+
+    private Slice<OrderResponseDTO> search() {
+        return orderService.searchOrders(admin, null, null, null, null, null, ORDERS);
+    }
+
+
+    private void projection(boolean enabled) {
+        ReflectionTestUtils.setField(AopTestUtils.getUltimateTargetObject(orderService), "projectionEnabled", enabled);
+    }
+
+
+    private void clearOrders() {
+        jdbcTemplate.update("DELETE FROM order_status_transitions");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        admissionController.reconcile();
+    }
+}
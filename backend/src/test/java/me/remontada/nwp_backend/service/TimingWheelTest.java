@@ -0,0 +1,141 @@
+package me.remontada.nwp_backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 16;
+    // the wheel measures with nanoTime, the test with the millisecond wall clock
+    private static final long CLOCK_SLACK_MILLIS = 2;
+
+    private TimingWheel wheel;
+
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE);
+        wheel.start();
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+
+    @Test
+    void firesTimeoutsInDeadlineOrderAndNotEarly() throws Exception {
+        long now = System.currentTimeMillis();
+        List<String> fired = new CopyOnWriteArrayList<>();
+        List<Long> firedAt = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        wheel.schedule(now + 90, record("c", fired, firedAt, done));
+        wheel.schedule(now + 30, record("a", fired, firedAt, done));
+        wheel.schedule(now + 60, record("b", fired, firedAt, done));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fired).containsExactly("a", "b", "c");
+        assertThat(firedAt.get(0)).isGreaterThanOrEqualTo(now + 30 - CLOCK_SLACK_MILLIS);
+        assertThat(firedAt.get(2)).isGreaterThanOrEqualTo(now + 90 - CLOCK_SLACK_MILLIS);
+        assertThat(wheel.size()).isZero();
+    }
+
+
+    @Test
+    void timeoutsBeyondOneRotationWaitForTheirRound() throws Exception {
+        // two and a half rotations of the wheel
+        long delay = TICK_MILLIS * WHEEL_SIZE * 5 / 2;
+        long now = System.currentTimeMillis();
+        CountDownLatch done = new CountDownLatch(1);
+        List<Long> firedAt = new CopyOnWriteArrayList<>();
+
+        wheel.schedule(now + delay, record("late", new CopyOnWriteArrayList<>(), firedAt, done));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(firedAt.get(0)).isGreaterThanOrEqualTo(now + delay - CLOCK_SLACK_MILLIS);
+    }
+
+
+    @Test
+    void overdueTimeoutsFireOnTheNextTick() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+
+        wheel.schedule(System.currentTimeMillis() - 60_000, done::countDown);
+
+        assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+
+    @Test
+    void aFailingTaskDoesNotStopTheWheel() throws Exception {
+        long now = System.currentTimeMillis();
+        CountDownLatch done = new CountDownLatch(1);
+
+        wheel.schedule(now + 10, () -> {
+            throw new IllegalStateException("boom");
+        });
+        wheel.schedule(now + 40, done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+
+    @Test
+    void parksWhileEmptyAndWakesForNewTimeouts() throws Exception {
+        Thread worker = (Thread) ReflectionTestUtils.getField(wheel, "workerThread");
+        awaitState(worker, Thread.State.WAITING);
+
+        // idle for many rotations, the skipped ticks must not delay or misplace the next timeout
+        Thread.sleep(TICK_MILLIS * WHEEL_SIZE * 3);
+
+        long now = System.currentTimeMillis();
+        CountDownLatch done = new CountDownLatch(1);
+        List<Long> firedAt = new CopyOnWriteArrayList<>();
+        wheel.schedule(now + 50, record("after idle", new CopyOnWriteArrayList<>(), firedAt, done));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(firedAt.get(0)).isBetween(now + 50 - CLOCK_SLACK_MILLIS, now + 50 + 1_000);
+
+        // empty again, so the worker goes back to parking without a timeout
+        awaitState(worker, Thread.State.WAITING);
+    }
+
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThatThrownBy(() -> new TimingWheel(0, 16)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimingWheel(10, 100)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+
+    private static Runnable record(String name, List<String> fired, List<Long> firedAt, CountDownLatch done) {
+        return () -> {
+            firedAt.add(System.currentTimeMillis());
+            fired.add(name);
+            done.countDown();
+        };
+    }
+
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != state) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package me.remontada.nwp_backend.service;
+
+import me.remontada.nwp_backend.PostgresIntegrationTest;
+import me.remontada.nwp_backend.model.OrderStatus;
+import me.remontada.nwp_backend.model.OrderStatusTransition;
+import me.remontada.nwp_backend.repository.OrderStatusTransitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Several in-process workers, each claiming under its own node id the way separate
+ * instances do, drain one set of due transitions. Every row must be claimed by exactly
+ * one worker, and leases must keep other nodes off rows until they expire.
+ */
+@SpringBootTest(properties = {
+        // keep the app's own sweep off the rows these tests insert
+        "orders.transitions.sweep-interval-ms=3600000"
+})
+class TransitionClaimIntegrationTest extends PostgresIntegrationTest {
+
+    private static final int WORKERS = 4;
+    private static final int TRANSITIONS = 1_000;
+    private static final int BATCH_SIZE = 25;
+
+    @Autowired
+    private OrderStatusTransitionRepository transitionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaction;
+
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_status_transitions");
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+
+    @Test
+    void concurrentWorkersClaimEveryDueRowExactlyOnce() throws Exception {
+        List<Long> ids = insertDue(TRANSITIONS);
+
+        Map<Long, String> claimedBy = new ConcurrentHashMap<>();
+        List<Long> duplicates = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+
+        List<Future<Integer>> claimed = new ArrayList<>();
+        for (int i = 0; i < WORKERS; i++) {
+            String nodeId = "node-" + i;
+            claimed.add(workers.submit(() -> {
+                start.await();
+                int total = 0;
+                List<Long> batch;
+                while (!(batch = claimBatch(nodeId)).isEmpty()) {
+                    for (Long id : batch) {
+                        if (claimedBy.putIfAbsent(id, nodeId) != null) {
+                            duplicates.add(id);
+                        }
+                    }
+                    // stands in for applying the batch
+                    List<Long> processed = batch;
+                    transaction.executeWithoutResult(status -> transitionRepository.markProcessed(processed));
+                    total += batch.size();
+                }
+                return total;
+            }));
+        }
+
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> worker : claimed) {
+            total += worker.get(60, TimeUnit.SECONDS);
+        }
+        workers.shutdown();
+
+        assertThat(duplicates).isEmpty();
+        assertThat(total).isEqualTo(TRANSITIONS);
+        assertThat(claimedBy.keySet()).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(count("SELECT COUNT(*) FROM order_status_transitions WHERE processed = false")).isZero();
+    }
+
+
+    @Test
+    void leasedRowsStayWithTheirNodeUntilTheLeaseExpires() {
+        insertDue(10);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> first = transaction.execute(status -> ids(
+                transitionRepository.claimDueTransitions("node-a", now, now.plusSeconds(30), 10)));
+        assertThat(first).hasSize(10);
+
+        // leased by node-a: nobody else gets them, node-a can renew its own claim
+        assertThat(transaction.execute(status ->
+                transitionRepository.claimDueTransitions("node-b", now, now.plusSeconds(30), 10))).isEmpty();
+        assertThat(transaction.execute(status -> ids(
+                transitionRepository.claimTransitions(first, "node-b", now, now.plusSeconds(30))))).isEmpty();
+        assertThat(transaction.execute(status -> ids(
+                transitionRepository.claimTransitions(first, "node-a", now, now.plusSeconds(30)))))
+                .containsExactlyInAnyOrderElementsOf(first);
+
+        // node-a went away: once the lease has run out node-b takes over
+        LocalDateTime afterLease = now.plusSeconds(31);
+        assertThat(transaction.execute(status -> ids(
+                transitionRepository.claimDueTransitions("node-b", afterLease, afterLease.plusSeconds(30), 10))))
+                .containsExactlyInAnyOrderElementsOf(first);
+    }
+
+
+    @Test
+    void releasedRowsCanBeClaimedRightAway() {
+        insertDue(5);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> claimed = transaction.execute(status -> ids(
+                transitionRepository.claimDueTransitions("node-a", now, now.plusSeconds(30), 5)));
+
+        // only the owner's release counts
+        transaction.executeWithoutResult(status -> transitionRepository.releaseClaims(claimed, "node-b"));
+        assertThat(transaction.execute(status ->
+                transitionRepository.claimDueTransitions("node-b", now, now.plusSeconds(30), 5))).isEmpty();
+
+        transaction.executeWithoutResult(status -> transitionRepository.releaseClaims(claimed, "node-a"));
+        assertThat(transaction.execute(status -> ids(
+                transitionRepository.claimDueTransitions("node-b", now, now.plusSeconds(30), 5))))
+                .containsExactlyInAnyOrderElementsOf(claimed);
+    }
+
+
+    private List<Long> claimBatch(String nodeId) {
+        LocalDateTime now = LocalDateTime.now();
+        return transaction.execute(status ->
+                ids(transitionRepository.claimDueTransitions(nodeId, now, now.plusSeconds(30), BATCH_SIZE)));
+    }
+
+
+    private List<Long> insertDue(int count) {
+        LocalDateTime due = LocalDateTime.now().minusMinutes(1);
+        List<OrderStatusTransition> transitions = LongStream.rangeClosed(1, count)
+                .mapToObj(orderId -> new OrderStatusTransition(orderId, OrderStatus.PREPARING, due))
+                .toList();
+        return transaction.execute(status -> transitionRepository.saveAll(transitions)).stream()
+                .map(OrderStatusTransition::getId)
+                .toList();
+    }
+
+
+    private static List<Long> ids(List<OrderStatusTransitionRepository.TransitionRef> refs) {
+        return refs.stream().map(OrderStatusTransitionRepository.TransitionRef::getId).toList();
+    }
+
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,57 @@
+package me.remontada.nwp_backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderCursorTest {
+
+    @Test
+    void roundTripsCreatedAtAndId() {
+        OrderCursor cursor = new OrderCursor(LocalDateTime.of(2026, 3, 14, 12, 30, 15, 123_456_789), 42L);
+
+        assertThat(OrderCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+
+    @Test
+    void roundTripsTimesWithoutSeconds() {
+        // LocalDateTime.toString drops zero seconds, parse has to accept that form
+        OrderCursor cursor = new OrderCursor(LocalDateTime.of(2026, 1, 1, 10, 0), Long.MAX_VALUE);
+
+        assertThat(OrderCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new OrderCursor(LocalDateTime.of(2026, 12, 31, 23, 59, 59, 999_999_999), 1L).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not a cursor!", "bm8tc2VwYXJhdG9y", "MjAyNi0wMS0wMVQxMDowMHxhYmM", "fDQy"})
+    void rejectsMalformedTokens(String token) {
+        assertThatThrownBy(() -> OrderCursor.decode(token))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Invalid cursor: " + token);
+    }
+
+
+    @Test
+    void rejectsTokensWithAnInvalidDate() {
+        String token = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2026-02-30T10:00|7".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> OrderCursor.decode(token)).hasMessage("Invalid cursor: " + token);
+    }
+}
@@ -0,0 +1,125 @@
+package me.remontada.nwp_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+
+    @Test
+    void concurrentMissesRunOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        AtomicReferenceArray<Object> results = runConcurrently(() -> singleFlight.load("menu", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "loaded";
+        }), release);
+
+        assertThat(loads).hasValue(1);
+        for (int i = 0; i < CALLERS; i++) {
+            assertThat(results.get(i)).isEqualTo("loaded");
+        }
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+
+    @Test
+    void waitersGetTheLoadersException() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        AtomicReferenceArray<Object> results = runConcurrently(() -> singleFlight.load("menu", () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new IllegalStateException("database down");
+        }), release);
+
+        assertThat(loads).hasValue(1);
+        for (int i = 0; i < CALLERS; i++) {
+            assertThat(results.get(i)).isInstanceOf(IllegalStateException.class)
+                    .hasFieldOrPropertyWithValue("message", "database down");
+        }
+    }
+
+
+    @Test
+    void keyIsFreeAgainOnceTheLoadFinishes() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.load("menu", () -> "v" + loads.incrementAndGet());
+        assertThat(singleFlight.load("menu", () -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+
+        assertThatThrownBy(() -> singleFlight.load("menu", () -> {
+            throw new IllegalStateException("failed");
+        })).hasMessage("failed");
+        assertThat(singleFlight.load("menu", () -> "v" + loads.incrementAndGet())).isEqualTo("v3");
+    }
+
+
+    @Test
+    void differentKeysLoadSeparately() {
+        assertThat(singleFlight.load("a", () -> singleFlight.load("b", () -> "b") + "a")).isEqualTo("ba");
+    }
+
+
+    /**
+     * Starts the callers and opens the release latch only once every one of them is parked,
+     * either in the loader or waiting for its result, so all of them are known to overlap.
+     * Holds each caller's result or exception.
+     */
+    private AtomicReferenceArray<Object> runConcurrently(Supplier<String> call, CountDownLatch release)
+            throws InterruptedException {
+        AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(CALLERS);
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            int caller = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    results.set(caller, call.get());
+                } catch (RuntimeException e) {
+                    results.set(caller, e);
+                }
+            });
+            callers.add(thread);
+            thread.start();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!callers.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+        for (Thread thread : callers) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        return results;
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 import { AxiosInstance } from "axios";
-import type { Dish } from "@/types/order";
+import type { Dish, DishSuggestion } from "@/types/order";
 
 export const getAvailableDishes = (client: AxiosInstance) =>
     client.get<Dish[]>("/v1/dishes");
 
+export const getMenuByCategory = (client: AxiosInstance) =>
+    client.get<Record<string, Dish[]>>("/v1/dishes/menu");
+
 export const getAllDishes = (client: AxiosInstance) =>
     client.get<Dish[]>("/v1/dishes/all");
 
@@ -16,5 +19,8 @@ export const getDishesByCategory = (client: AxiosInstance, category: string, onl
 export const searchDishesByName = (client: AxiosInstance, name: string) =>
     client.get<Dish[]>(`/v1/dishes/search?name=${encodeURIComponent(name)}`);
 
+export const suggestDishes = (client: AxiosInstance, q: string, limit = 10) =>
+    client.get<DishSuggestion[]>(`/v1/dishes/suggest?q=${encodeURIComponent(q)}&limit=${limit}`);
+
 export const getDishCategories = (client: AxiosInstance) =>
     client.get<string[]>("/v1/dishes/categories");
\ No newline at end of file
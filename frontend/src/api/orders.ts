@@ -1,8 +1,8 @@
 import { AxiosInstance } from "axios";
-import type { OrderResponse, OrderSearchParams } from "@/types/order";
+import type { OrderPage, OrderResponse, OrderSearchParams } from "@/types/order";
 import type {PlaceOrderRequest, ScheduleOrderRequest} from "@/api/request/order";
 
-export const searchOrders = (client: AxiosInstance, params: OrderSearchParams = {}) => {
+export const searchOrders = (client: AxiosInstance, params: OrderSearchParams = {}, cursor?: string) => {
     const searchParams = new URLSearchParams();
 
     if (params.status && params.status.length > 0) {
@@ -21,10 +21,14 @@ export const searchOrders = (client: AxiosInstance, params: OrderSearchParams =
         searchParams.append('userId', params.userId.toString());
     }
 
+    if (cursor) {
+        searchParams.append('cursor', cursor);
+    }
+
     const queryString = searchParams.toString();
     const url = queryString ? `/v1/orders?${queryString}` : '/v1/orders';
 
-    return client.get<OrderResponse[]>(url);
+    return client.get<OrderPage>(url);
 };
 
 export const placeOrder = (client: AxiosInstance, data: PlaceOrderRequest) =>
@@ -32,10 +32,11 @@ const searchSchema = z.object({
 type SearchFormData = z.infer<typeof searchSchema>;
 
 const ORDER_STATUSES: OrderStatus[] = [
-    "ORDERED", "PREPARING", "IN_DELIVERY", "DELIVERED", "CANCELED"
+    "WAITING", "ORDERED", "PREPARING", "IN_DELIVERY", "DELIVERED", "CANCELED"
 ];
 
 const STATUS_LABELS = {
+    WAITING: "Waiting",
     ORDERED: "Ordered",
     PREPARING: "Preparing",
     IN_DELIVERY: "In Delivery",
@@ -49,7 +50,9 @@ export default function OrdersPage() {
     const [isPollingEnabled, setIsPollingEnabled] = useState(true);
     const { data: me } = useMe();
 
-    const { data: orders, isLoading, error, refetch } = useOrders(searchParams, isPollingEnabled, !!me);
+    const { data, isLoading, error, refetch, hasNextPage, fetchNextPage, isFetchingNextPage } =
+        useOrders(searchParams, isPollingEnabled, !!me);
+    const orders = data?.pages.flatMap(page => page.items);
 
     const form = useForm<SearchFormData>({
         resolver: zodResolver(searchSchema),
@@ -300,6 +303,18 @@ export default function OrdersPage() {
                         <OrdersTable orders={orders || []} isPollingEnabled={isPollingEnabled} />
                     )}
 
+                    {hasNextPage && (
+                        <div className="flex justify-center">
+                            <Button
+                                variant="outline"
+                                onClick={() => fetchNextPage()}
+                                disabled={isFetchingNextPage}
+                            >
+                                {isFetchingNextPage ? "Loading..." : "Load more"}
+                            </Button>
+                        </div>
+                    )}
+
                 </div>
             </AppLayout>
         </AuthGuard>
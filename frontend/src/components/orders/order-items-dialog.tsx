@@ -34,7 +34,7 @@ export function OrderItemsDialog({ order, isOpen, onClose }: OrderItemsDialogPro
     };
 
     const calculateOrderTotal = () => {
-        return order.items?.reduce((total, item) => {
+        return order.totalAmount ?? order.items?.reduce((total, item) => {
             return total + item.totalPrice;
         }, 0) ?? 0;
     };
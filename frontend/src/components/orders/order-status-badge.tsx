@@ -1,6 +1,6 @@
 "use client";
 
-import { Clock, ChefHat, Truck, CheckCircle, XCircle } from "lucide-react";
+import { Clock, ChefHat, Truck, CheckCircle, XCircle, Hourglass } from "lucide-react";
 import { Badge } from "@/components/ui/badge";
 import type { OrderStatus } from "@/types/order";
 
@@ -11,6 +11,12 @@ interface OrderStatusBadgeProps {
 }
 
 const STATUS_CONFIG = {
+    WAITING: {
+        label: "Waiting",
+        color: "bg-gray-100 text-gray-800 border-gray-200",
+        icon: Hourglass,
+        description: "Kitchen is full, order is queued"
+    },
     ORDERED: {
         label: "Ordered",
         color: "bg-blue-100 text-blue-800 border-blue-200",
@@ -46,7 +46,7 @@ export function OrdersTable({ orders, isPollingEnabled = false }: OrdersTablePro
 
     const canCancelOrder = (order: OrderResponse) => {
         return can("CAN_CANCEL_ORDER") &&
-            order.status === "ORDERED";
+            (order.status === "ORDERED" || order.status === "WAITING");
     };
 
     const formatCurrency = (amount: number) => {
@@ -58,7 +58,7 @@ export function OrdersTable({ orders, isPollingEnabled = false }: OrdersTablePro
 
 
     const calculateOrderTotal = (order: OrderResponse) => {
-        return order.items?.reduce((total, item) => {
+        return order.totalAmount ?? order.items?.reduce((total, item) => {
             return total + item.totalPrice; // ← Koristi computed totalPrice field
         }, 0) ?? 0;
     };
@@ -5,9 +5,11 @@ import { useHttpClient } from "@/context/HttpClientContext";
 import {
     getAvailableDishes,
     getAllDishes,
+    getMenuByCategory,
     getDishById,
     getDishesByCategory,
     searchDishesByName,
+    suggestDishes,
     getDishCategories
 } from "@/api/dishes";
 
@@ -23,6 +25,18 @@ export function useAvailableDishes() {
     });
 }
 
+export function useMenuByCategory() {
+    const client = useHttpClient();
+
+    return useQuery({
+        queryKey: ["dishes", "menu"],
+        queryFn: async () => (await getMenuByCategory(client)).data,
+        retry: false,
+        refetchOnWindowFocus: false,
+        staleTime: 60_000,
+    });
+}
+
 export function useAllDishes() {
     const client = useHttpClient();
 
@@ -74,6 +88,19 @@ export function useSearchDishes(name: string) {
     });
 }
 
+export function useDishSuggestions(q: string, limit = 10) {
+    const client = useHttpClient();
+
+    return useQuery({
+        queryKey: ["dishes", "suggest", q, limit],
+        queryFn: async () => (await suggestDishes(client, q, limit)).data,
+        enabled: !!q,
+        retry: false,
+        refetchOnWindowFocus: false,
+        staleTime: 30_000,
+    });
+}
+
 export function useDishCategories() {
     const client = useHttpClient();
 
@@ -1,6 +1,6 @@
 "use client";
 
-import { useMutation, useQuery, useQueryClient } from "@tanstack/react-query";
+import { useInfiniteQuery, useMutation, useQuery, useQueryClient, type InfiniteData } from "@tanstack/react-query";
 import { useHttpClient } from "@/context/HttpClientContext";
 import {
     searchOrders,
@@ -10,25 +10,53 @@ import {
     cancelOrder
 } from "@/api/orders";
 import { toastSuccess, toastRequestError } from '@/lib/toast';
-import type { OrderSearchParams, OrderResponse } from "@/types/order";
+import { retryAfterMs } from '@/lib/utils';
+import type { OrderSearchParams, OrderResponse, OrderPage } from "@/types/order";
 import type {PlaceOrderRequest, ScheduleOrderRequest} from "@/api/request/order";
 
+const POLL_INTERVAL = 5000;
+
 export function useOrders(
     searchParams: OrderSearchParams = {},
     enablePolling = false,
     enabled = true,
 ) {
     const client = useHttpClient();
+    const qc = useQueryClient();
+    const queryKey = ["orders", searchParams];
 
-    return useQuery({
-        queryKey: ["orders", searchParams],
-        queryFn: async () => (await searchOrders(client, searchParams)).data,
+    const orders = useInfiniteQuery({
+        queryKey,
+        queryFn: async ({ pageParam }) => (await searchOrders(client, searchParams, pageParam)).data,
+        initialPageParam: undefined as string | undefined,
+        getNextPageParam: (lastPage) => lastPage.nextCursor ?? undefined,
         retry: false,
         refetchOnWindowFocus: false,
-        staleTime: enablePolling ? 0 : 30_000,
-        refetchInterval: enablePolling ? 5000 : false,
+        staleTime: 30_000,
         enabled
     });
+
+    // polling only refreshes the first page (newest orders, where statuses change);
+    // refetching the infinite query would re-request every page loaded so far
+    useQuery({
+        queryKey: [...queryKey, "poll"],
+        queryFn: async () => {
+            const firstPage = (await searchOrders(client, searchParams)).data;
+            qc.setQueryData<InfiniteData<OrderPage, string | undefined>>(queryKey, (data) =>
+                data && { ...data, pages: [firstPage, ...data.pages.slice(1)] });
+            return firstPage;
+        },
+        initialData: () => qc.getQueryData<InfiniteData<OrderPage, string | undefined>>(queryKey)?.pages[0],
+        initialDataUpdatedAt: () => qc.getQueryState(queryKey)?.dataUpdatedAt,
+        enabled: enabled && enablePolling && !!orders.data,
+        retry: false,
+        refetchOnWindowFocus: false,
+        staleTime: POLL_INTERVAL,
+        // back off as long as the server asks when it rate limits the poll
+        refetchInterval: (query) => retryAfterMs(query.state.error) ?? POLL_INTERVAL,
+    });
+
+    return orders;
 }
 
 export function useOrder(orderId: number, enablePolling = false) {
@@ -2,6 +2,7 @@
 
 import { toast } from 'sonner';
 import type { AxiosError } from 'axios';
+import { retryAfterMs } from '@/lib/utils';
 
 export const toastSuccess = (message: string, description?: string) =>
     toast.success(message, description ? { description } : undefined);
@@ -22,6 +23,13 @@ export function toastRequestError(err: unknown, fallback = 'Something went wrong
         const status = ax.response?.status;
         const data = ax.response?.data;
 
+        const retryAfter = retryAfterMs(err);
+        if (retryAfter !== null) {
+            return toast.error('⏳ Too many requests', {
+                description: `Please try again in ${Math.ceil(retryAfter / 1000)} seconds.`
+            });
+        }
+
 
 
         if (data && typeof data === 'object') {
@@ -1,6 +1,16 @@
 import { clsx, type ClassValue } from "clsx"
 import { twMerge } from "tailwind-merge"
+import type { AxiosError } from "axios"
 
 export function cn(...inputs: ClassValue[]) {
   return twMerge(clsx(inputs))
 }
+
+// milliseconds the server asked us to wait (429 Retry-After), or null for other errors
+export function retryAfterMs(err: unknown): number | null {
+  const ax = err as AxiosError
+  if (!ax?.isAxiosError || ax.response?.status !== 429) return null
+
+  const seconds = Number(ax.response.headers?.["retry-after"])
+  return Number.isFinite(seconds) && seconds > 0 ? seconds * 1000 : 60_000
+}
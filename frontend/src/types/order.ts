@@ -1,4 +1,5 @@
 export type OrderStatus =
+    | "WAITING"
     | "ORDERED"
     | "PREPARING"
     | "IN_DELIVERY"
@@ -14,6 +15,14 @@ export interface Dish {
     available: boolean;
 }
 
+export interface DishSuggestion {
+    text: string;
+    type: "DISH" | "CATEGORY";
+    dishId?: number;
+    category: string;
+    popularity: number;
+}
+
 export interface DishSimple {
     id: number;
     name: string;
@@ -49,8 +58,11 @@ export interface OrderResponse {
     createdAt: string;
     scheduledFor?: string;
     items: OrderItemResponse[];
-    totalItems: number;        //  Computed field
+    totalItems: number;        //  Stored on the order
+    totalAmount: number;       //  Stored on the order
     statusDisplayName: string; //  Computed field
+    queuePosition?: number;    //  Only while WAITING
+    estimatedStartAt?: string; //  Only while WAITING
 }
 
 export interface OrderItem {
@@ -77,6 +89,11 @@ export interface Order {
     items: OrderItem[];
 }
 
+export interface OrderPage {
+    items: OrderResponse[];
+    nextCursor: string | null;
+}
+
 export interface OrderSearchParams {
     status?: OrderStatus[];
     dateFrom?: string;